@@ -0,0 +1,57 @@
+package com.laeben.core.benchmark;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Runs the benchmarks like the JMH main and writes the results as JSON to compare the releases with {@link CompareResults}.
+ * <br/>
+ * Results are written to <i>results/{label}.json</i>, the label is the <i>benchmark.label</i> property
+ * or <i>current</i>. The JMH options are accepted too, an explicit <i>-rf</i> or <i>-rff</i> is kept.
+ * <br/>
+ * <i>java -Dbenchmark.label=1.0.1 -jar target/benchmarks.jar</i>
+ */
+public final class BenchmarkRunner {
+    public static final String RESULTS = "results";
+
+    private BenchmarkRunner(){
+
+    }
+
+    public static void main(String[] args) throws IOException, RunnerException {
+        CommandLineOptions cmd;
+        try{
+            cmd = new CommandLineOptions(args);
+        }
+        catch (CommandLineOptionException e){
+            System.err.println("Error parsing command line: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+
+        if (cmd.shouldHelp() || cmd.shouldList() || cmd.shouldListWithParams() || cmd.shouldListProfilers() || cmd.shouldListResultFormats()){
+            Main.main(args);
+            return;
+        }
+
+        var builder = new OptionsBuilder().parent(cmd);
+        if (!cmd.getResultFormat().hasValue())
+            builder.resultFormat(ResultFormatType.JSON);
+        if (!cmd.getResult().hasValue()){
+            Path file = Path.of(RESULTS, System.getProperty("benchmark.label", "current") + ".json");
+            Files.createDirectories(file.getParent());
+            builder.result(file.toString());
+        }
+
+        new Runner(builder.build()).run();
+    }
+}
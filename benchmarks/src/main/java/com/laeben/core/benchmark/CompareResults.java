@@ -0,0 +1,107 @@
+package com.laeben.core.benchmark;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares two JSON results of JMH, for example of two releases.
+ * <br/>
+ * A benchmark regressed if its score got worse by more than the threshold and by more than the errors of both scores.
+ * Exits with 1 if any benchmark regressed.
+ * <br/>
+ * <i>java -cp target/benchmarks.jar com.laeben.core.benchmark.CompareResults results/1.0.0.json results/1.0.1.json [threshold percent, 10]</i>
+ */
+public final class CompareResults {
+    private static class Score {
+        private final String mode;
+        private final String unit;
+        private final double score;
+        private final double error;
+
+        private Score(JsonObject result){
+            var metric = result.getAsJsonObject("primaryMetric");
+            mode = result.get("mode").getAsString();
+            unit = metric.get("scoreUnit").getAsString();
+            score = metric.get("score").getAsDouble();
+            JsonElement e = metric.get("scoreError");
+            // NaN with a single iteration
+            error = e == null || !e.isJsonPrimitive() || !e.getAsJsonPrimitive().isNumber() || Double.isNaN(e.getAsDouble()) ? 0 : e.getAsDouble();
+        }
+
+        private boolean isThroughput(){
+            return mode.equals("thrpt");
+        }
+    }
+
+    private CompareResults(){
+
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2){
+            System.err.println("Usage: CompareResults <baseline.json> <current.json> [threshold percent]");
+            System.exit(2);
+            return;
+        }
+
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) / 100 : 0.1;
+        var baseline = read(Path.of(args[0]));
+        var current = read(Path.of(args[1]));
+
+        int regressions = 0;
+        System.out.printf("%-72s %14s %14s %9s%n", "Benchmark", "Baseline", "Current", "Change");
+        for (var e : current.entrySet()){
+            Score now = e.getValue();
+            Score old = baseline.get(e.getKey());
+            if (old == null || !old.unit.equals(now.unit)){
+                System.out.printf("%-72s %14s %14.3f %9s%n", e.getKey(), "-", now.score, "new");
+                continue;
+            }
+
+            double change = (now.score - old.score) / old.score;
+            double worse = now.isThroughput() ? old.score - now.score : now.score - old.score;
+            boolean regressed = worse > old.score * threshold && worse > old.error + now.error;
+            if (regressed)
+                regressions++;
+
+            System.out.printf("%-72s %14.3f %14.3f %+8.1f%%%s%n", e.getKey(), old.score, now.score, change * 100, regressed ? " REGRESSED" : "");
+        }
+
+        for (var key : baseline.keySet()){
+            if (!current.containsKey(key))
+                System.out.printf("%-72s %14.3f %14s %9s%n", key, baseline.get(key).score, "-", "removed");
+        }
+
+        System.out.printf("%n%d regression(s) over %.0f%%%n", regressions, threshold * 100);
+        if (regressions > 0)
+            System.exit(1);
+    }
+
+    /**
+     * @return scores keyed by the benchmark, its mode and sorted parameters
+     */
+    private static Map<String, Score> read(Path file) throws IOException {
+        var scores = new LinkedHashMap<String, Score>();
+        for (JsonElement e : JsonParser.parseString(Files.readString(file)).getAsJsonArray()){
+            var result = e.getAsJsonObject();
+            var key = new StringBuilder(result.get("benchmark").getAsString().replace("com.laeben.core.benchmark.", ""));
+            if (result.has("params")){
+                var params = new TreeMap<String, String>();
+                result.getAsJsonObject("params").entrySet().forEach(x -> params.put(x.getKey(), x.getValue().getAsString()));
+                params.forEach((k, v) -> key.append(' ').append(k).append('=').append(v));
+            }
+            key.append(" [").append(result.get("mode").getAsString()).append(']');
+            scores.put(key.toString(), new Score(result));
+        }
+
+        return scores;
+    }
+}
@@ -0,0 +1,79 @@
+package com.laeben.core.benchmark;
+
+import com.laeben.core.entity.Path;
+import com.laeben.core.network.Network;
+import com.laeben.core.network.entity.NetworkToken;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and CPU time of {@link Network#download(NetworkToken, boolean)} from a local server.
+ * <br/>
+ * <i>io</i> selects the direct buffer channel loop or the heap buffer copy loop.
+ * Run with <i>-prof gc</i> to compare the allocations too.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DownloadBenchmark {
+    /**
+     * Process CPU time per download, including the local server.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Cpu {
+        public long cpuMillis;
+    }
+
+    @Param({"channel", "legacy"})
+    public String io;
+
+    @Param({"1048576", "67108864"})
+    public int size;
+
+    @Param({"1", "4"})
+    public int segments;
+
+    private StubServer server;
+    private String url;
+    private java.nio.file.Path dir;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        System.setProperty("laeben.download.legacyio", String.valueOf(io.equals("legacy")));
+
+        byte[] body = new byte[size];
+        new Random(size).nextBytes(body);
+        server = new StubServer();
+        url = server.serve("/file.bin", body);
+        dir = Files.createTempDirectory("laeben-download");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        server.close();
+        Path.begin(dir).delete();
+    }
+
+    @Benchmark
+    public Path download(Cpu cpu) throws Exception {
+        var os = (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+        long begin = os.getProcessCpuTime();
+
+        var token = NetworkToken.create(url, Path.begin(dir).to("file.bin"), false)
+                .withSegments(segments)
+                .withResume(false);
+        Path path = Network.download(token, false);
+
+        cpu.cpuMillis += TimeUnit.NANOSECONDS.toMillis(os.getProcessCpuTime() - begin);
+        return path;
+    }
+}
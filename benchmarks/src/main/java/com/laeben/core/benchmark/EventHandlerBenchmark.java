@@ -0,0 +1,40 @@
+package com.laeben.core.benchmark;
+
+import com.laeben.core.util.EventHandler;
+import com.laeben.core.util.events.BaseEvent;
+import com.laeben.core.util.events.ValueEvent;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dispatch cost of {@link EventHandler#execute(BaseEvent)} to synchronous handlers.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventHandlerBenchmark {
+    @Param({"1", "8"})
+    public int handlers;
+
+    private EventHandler<BaseEvent> handler;
+    private ValueEvent event;
+    private long dispatched;
+
+    @Setup(Level.Trial)
+    public void setup(){
+        handler = new EventHandler<>();
+        for (int i = 0; i < handlers; i++)
+            handler.addHandler("handler" + i, e -> dispatched++, false);
+        event = new ValueEvent("progress", 0.5);
+    }
+
+    @Benchmark
+    public long execute(){
+        handler.execute(event);
+        return dispatched;
+    }
+}
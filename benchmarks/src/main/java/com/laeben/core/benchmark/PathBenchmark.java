@@ -0,0 +1,105 @@
+package com.laeben.core.benchmark;
+
+import com.laeben.core.entity.Path;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Archive operations of {@link Path} on a generated directory of half random, half repeated files.
+ * <br/>
+ * The archives are extracted over the same destination, so only the first extraction creates the files.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PathBenchmark {
+    @Param({"16", "256"})
+    public int files;
+
+    @Param({"16384"})
+    public int fileSize;
+
+    private java.nio.file.Path dir;
+    private Path source;
+    private Path zip;
+    private Path tar;
+    private Path zipTarget;
+    private Path extractZip;
+    private Path extractTar;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("laeben-path");
+        var random = new Random(files);
+        var src = Files.createDirectories(dir.resolve("source/lib"));
+        for (int i = 0; i < files; i++){
+            byte[] content = new byte[fileSize];
+            // compressible second half
+            random.nextBytes(content);
+            for (int j = fileSize / 2; j < fileSize; j++)
+                content[j] = (byte) ('a' + j % 16);
+            Files.write(src.resolve("file" + i + ".bin"), content);
+        }
+
+        source = Path.begin(dir.resolve("source"));
+        zip = Path.begin(dir.resolve("fixture.zip"));
+        source.zip(zip);
+        tar = Path.begin(dir.resolve("fixture.tar.gz"));
+        writeTar(src, tar.toFile().toPath());
+
+        zipTarget = Path.begin(dir.resolve("out.zip"));
+        extractZip = Path.begin(dir.resolve("zip"));
+        extractTar = Path.begin(dir.resolve("tar"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown(){
+        Path.begin(dir).delete();
+    }
+
+    private static void writeTar(java.nio.file.Path src, java.nio.file.Path target) throws IOException {
+        try (OutputStream file = Files.newOutputStream(target);
+             var tar = new TarArchiveOutputStream(new GZIPOutputStream(file))){
+            List<java.nio.file.Path> list;
+            try (var walk = Files.list(src)){
+                list = walk.sorted().collect(java.util.stream.Collectors.toList());
+            }
+            for (var f : list){
+                var entry = new TarArchiveEntry(f.toFile(), "lib/" + f.getFileName());
+                tar.putArchiveEntry(entry);
+                Files.copy(f, tar);
+                tar.closeArchiveEntry();
+            }
+        }
+    }
+
+    @Benchmark
+    public long zip(){
+        source.zip(zipTarget);
+        return zipTarget.getSize();
+    }
+
+    @Benchmark
+    public Path extractZip(){
+        zip.extract(extractZip, null);
+        return extractZip;
+    }
+
+    @Benchmark
+    public Path extractTar(){
+        tar.extract(extractTar, null);
+        return extractTar;
+    }
+}
@@ -0,0 +1,80 @@
+package com.laeben.core.benchmark;
+
+import com.laeben.core.LaebenApp;
+import com.laeben.core.entity.exception.HttpException;
+import com.laeben.core.entity.exception.NoConnectionException;
+import com.laeben.core.network.requester.RequesterFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to the first usable state of an app, reading its metadata from a local server with a simulated round trip time.
+ * <br/>
+ * <i>sequential</i> is the previous startup calling {@link LaebenApp#get(String, String)}, {@link LaebenApp#getLatest()},
+ * {@link LaebenApp#getFiles()} and {@link LaebenApp#getAnnouncements()} one after another.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PrefetchBenchmark {
+    private static final String ID = "bench";
+
+    @Param({"sequential", "concurrent", "single"})
+    public String mode;
+
+    @Param({"0", "30"})
+    public long latency;
+
+    private StubServer server;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        var latest = "{\"url\":\"https://example.com/app-2.0.zip\",\"version\":2.0,\"size\":1048576}";
+        var files = new StringBuilder("{");
+        for (int i = 0; i < 50; i++)
+            files.append(i == 0 ? "" : ",").append("\"f").append(i).append("\":{\"url\":\"https://example.com/app-1.").append(i).append(".zip\",\"version\":1.").append(i).append('}');
+        files.append('}');
+        var announcements = new StringBuilder("{");
+        for (int i = 0; i < 10; i++)
+            announcements.append(i == 0 ? "" : ",").append("\"a").append(i).append("\":{\"id\":").append(i)
+                    .append(",\"title\":{\"en\":\"Title ").append(i).append("\"},\"content\":{\"en\":\"Content ").append(i)
+                    .append("\"},\"end_time\":\"2099-01-0").append(i % 9 + 1).append("T00:00:00Z\",\"versions\":[\"2.0\"]}");
+        announcements.append('}');
+
+        String app = "{\"name\":\"Bench\",\"latest\":2.0,\"icon\":\"icon.png\",\"latestMeta\":" + latest + ",\"files\":" + files + ",\"announcements\":" + announcements + "}";
+
+        server = new StubServer();
+        server.serve("/apps/" + ID + ".json", app.getBytes(StandardCharsets.UTF_8));
+        server.serve("/apps/" + ID + "/latestMeta.json", latest.getBytes(StandardCharsets.UTF_8));
+        server.serve("/apps/" + ID + "/files.json", files.toString().getBytes(StandardCharsets.UTF_8));
+        server.serve("/apps/" + ID + "/announcements.json", announcements.toString().getBytes(StandardCharsets.UTF_8));
+        server.setLatency(latency);
+
+        LaebenApp.setRequesterFactory(new RequesterFactory(server.getUrl()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown(){
+        LaebenApp.setRequesterFactory(null);
+        server.close();
+    }
+
+    @Benchmark
+    public Object startup() throws NoConnectionException, HttpException {
+        switch (mode){
+            case "concurrent":
+                return LaebenApp.prefetch(ID, "Bench", LaebenApp.PrefetchMode.CONCURRENT);
+            case "single":
+                return LaebenApp.prefetch(ID, "Bench", LaebenApp.PrefetchMode.SINGLE_READ);
+            default:
+                var app = LaebenApp.get(ID, "Bench");
+                return new Object[]{ app, app.getLatest(), app.getFiles(), app.getAnnouncements() };
+        }
+    }
+}
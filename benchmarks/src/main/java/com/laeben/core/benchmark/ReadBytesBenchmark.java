@@ -0,0 +1,44 @@
+package com.laeben.core.benchmark;
+
+import com.laeben.core.entity.Path;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Path#readAllBytes(InputStream)} against {@link InputStream#readAllBytes()} as the baseline.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReadBytesBenchmark {
+    @Param({"4096", "262144"})
+    public int size;
+
+    private Path path;
+    private byte[] content;
+
+    @Setup(Level.Trial)
+    public void setup(){
+        content = new byte[size];
+        new Random(size).nextBytes(content);
+        path = Path.begin(java.nio.file.Path.of(System.getProperty("java.io.tmpdir")));
+    }
+
+    @Benchmark
+    public byte[] readAllBytes() throws IOException {
+        return path.readAllBytes(new ByteArrayInputStream(content));
+    }
+
+    @Benchmark
+    public byte[] streamReadAllBytes() throws IOException {
+        return new ByteArrayInputStream(content).readAllBytes();
+    }
+}
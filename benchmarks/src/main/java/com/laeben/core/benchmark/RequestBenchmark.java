@@ -0,0 +1,58 @@
+package com.laeben.core.benchmark;
+
+import com.laeben.core.entity.RequestParameter;
+import com.laeben.core.network.requester.Requester;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request building without the network, {@link RequestParameter#classToParams(Object, Class)} and {@link Requester#getUrl()}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestBenchmark {
+    public enum Sort {
+        NAME,
+        DATE
+    }
+
+    /**
+     * Query class in the form of the search requests.
+     */
+    public static class Query {
+        public String query = "laeben";
+        public int limit = 20;
+        public int offset;
+        public Sort sort = Sort.DATE;
+        public List<Sort> sorts = List.of(Sort.NAME, Sort.DATE);
+        public String category;
+    }
+
+    private Query query;
+    private Requester requester;
+
+    @Setup(Level.Trial)
+    public void setup(){
+        query = new Query();
+        requester = new Requester("https://example.com/api/")
+                .to("apps").to("laeben").to("files.json")
+                .withParams(RequestParameter.classToParams(query, Query.class))
+                .withParam(new RequestParameter("orderBy", "\"$key\"").markAsEscapable());
+    }
+
+    @Benchmark
+    public List<RequestParameter> classToParams(){
+        return RequestParameter.classToParams(query, Query.class);
+    }
+
+    @Benchmark
+    public String getUrl(){
+        return requester.getUrl();
+    }
+}
@@ -0,0 +1,45 @@
+package com.laeben.core.benchmark;
+
+import com.laeben.core.util.StrUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link StrUtil#pure(String)} and {@link StrUtil#trimEnd(String, char)} on file names and urls.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StrUtilBenchmark {
+    @Param({"16", "256"})
+    public int length;
+
+    private String name;
+    private String url;
+
+    @Setup(Level.Trial)
+    public void setup(){
+        var n = new StringBuilder();
+        var u = new StringBuilder("https://example.com");
+        for (int i = 0; n.length() < length; i++){
+            n.append("file").append(i).append(i % 5 == 0 ? ":*?" : "_");
+            u.append("/path").append(i);
+        }
+        name = n.substring(0, length);
+        url = u.append("////").toString();
+    }
+
+    @Benchmark
+    public String pure(){
+        return StrUtil.pure(name);
+    }
+
+    @Benchmark
+    public String trimEnd(){
+        return StrUtil.trimEnd(url, '/');
+    }
+}
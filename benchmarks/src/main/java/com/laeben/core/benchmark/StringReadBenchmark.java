@@ -0,0 +1,72 @@
+package com.laeben.core.benchmark;
+
+import com.laeben.core.network.Network;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Network#inputStreamToString(InputStream, long)} against the previous byte by byte loop.
+ * <br/>
+ * Run with <i>-prof gc</i> to compare the allocations per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StringReadBenchmark {
+    @Param({"4096", "262144", "4194304"})
+    public int size;
+
+    private byte[] json;
+
+    @Setup(Level.Trial)
+    public void setup(){
+        var builder = new StringBuilder(size + 64).append('{');
+        for (int i = 0; builder.length() < size; i++)
+            builder.append("\"key").append(i).append("\":{\"name\":\"value ").append(i).append(" \u00e7\u011f\u0131\u015f\",\"version\":1.").append(i).append("},");
+        builder.setLength(builder.length() - 1);
+        json = builder.append('}').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String bulkWithLength(){
+        return Network.inputStreamToString(new ByteArrayInputStream(json), json.length);
+    }
+
+    @Benchmark
+    public String bulkWithoutLength(){
+        return Network.inputStreamToString(new ByteArrayInputStream(json));
+    }
+
+    /**
+     * Previous implementation of {@link Network#inputStreamToString(InputStream)}.
+     */
+    @Benchmark
+    public String byteByByte(){
+        String read = "{}";
+        try (BufferedInputStream stream = new BufferedInputStream(new ByteArrayInputStream(json));
+             ByteArrayOutputStream buffer = new ByteArrayOutputStream()
+        ){
+            int r;
+            while ((r = stream.read()) != -1){
+                buffer.write(r);
+            }
+
+            read = buffer.toString(StandardCharsets.UTF_8);
+        }
+        catch (IOException ignored){
+
+        }
+
+        return read;
+    }
+}
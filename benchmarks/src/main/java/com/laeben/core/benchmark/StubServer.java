@@ -0,0 +1,117 @@
+package com.laeben.core.benchmark;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+
+/**
+ * Local http server serving fixed bodies with <i>Range</i> support.
+ */
+public class StubServer implements AutoCloseable {
+    static {
+        // small responses would otherwise wait for the delayed acks of the client
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final HttpServer server;
+    private final Map<String, byte[]> bodies = new ConcurrentHashMap<>();
+    private volatile long latency;
+
+    public StubServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "stub-server");
+            t.setDaemon(true);
+            return t;
+        }));
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    /**
+     * Serve the body on the path.
+     * @param path path starting with a slash
+     * @param body the body
+     * @return url of the path
+     */
+    public String serve(String path, byte[] body){
+        bodies.put(path, body);
+        return getUrl() + path;
+    }
+
+    /**
+     * Delay every response to simulate the round trip time of a remote server.
+     * @param millis the delay
+     */
+    public void setLatency(long millis){
+        latency = millis;
+    }
+
+    /**
+     * @return base url of the server without a trailing slash
+     */
+    public String getUrl(){
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange){
+            if (latency > 0){
+                try{
+                    Thread.sleep(latency);
+                }
+                catch (InterruptedException e){
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+
+            byte[] body = bodies.get(exchange.getRequestURI().getPath());
+            if (body == null){
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+
+            var headers = exchange.getResponseHeaders();
+            headers.set("Accept-Ranges", "bytes");
+            headers.set("ETag", "\"" + body.length + "\"");
+
+            int start = 0;
+            int end = body.length - 1;
+            String range = exchange.getRequestHeaders().getFirst("Range");
+            int code = 200;
+            if (range != null && range.startsWith("bytes=")){
+                String[] parts = range.substring(6).split("-", -1);
+                start = Integer.parseInt(parts[0]);
+                if (!parts[1].isEmpty())
+                    end = Math.min(end, Integer.parseInt(parts[1]));
+                code = 206;
+                headers.set("Content-Range", "bytes " + start + "-" + end + "/" + body.length);
+            }
+
+            int length = end - start + 1;
+            if (exchange.getRequestMethod().equals("HEAD")){
+                headers.set("Content-Length", String.valueOf(length));
+                exchange.sendResponseHeaders(code, -1);
+                return;
+            }
+
+            exchange.sendResponseHeaders(code, length);
+            try (OutputStream stream = exchange.getResponseBody()){
+                stream.write(body, start, length);
+            }
+        }
+    }
+
+    @Override
+    public void close(){
+        server.stop(0);
+    }
+}
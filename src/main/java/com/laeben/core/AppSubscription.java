@@ -0,0 +1,243 @@
+package com.laeben.core;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.laeben.core.entity.Announcement;
+import com.laeben.core.entity.LaebenAppFile;
+import com.laeben.core.network.EventSource;
+import com.laeben.core.util.EventHandler;
+import com.laeben.core.util.events.BaseEvent;
+import com.laeben.core.util.events.ChangeEvent;
+import com.laeben.core.util.events.ValueEvent;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Live subscription to the app node over a Firebase event stream.
+ * <br/>
+ * Keeps a local copy of the node updated by the <i>put</i> and <i>patch</i> events and publishes a
+ * {@link ChangeEvent} when the app, its latest file, files or announcements change. The first event
+ * contains the whole node, so the initial values are published with null old values.
+ * Add the handlers before {@link #start()}.
+ */
+public class AppSubscription implements AutoCloseable {
+    /**
+     * {@link LaebenApp} changed, for example its name or latest version.
+     */
+    public static final String APP = "app";
+    /**
+     * Latest {@link LaebenAppFile} changed.
+     */
+    public static final String LATEST = "latest";
+    /**
+     * List of the {@link LaebenAppFile}s changed.
+     */
+    public static final String FILES = "files";
+    /**
+     * List of the active {@link Announcement}s changed.
+     */
+    public static final String ANNOUNCEMENTS = "announcements";
+    /**
+     * {@link ValueEvent} with true when the stream is connected and false when it is lost.
+     */
+    public static final String CONNECTION = "connection";
+    /**
+     * {@link ValueEvent} with the reason when the server cancels the stream, the subscription is closed.
+     */
+    public static final String CANCEL = "cancel";
+
+    private final String id;
+    private final EventSource source;
+    private final EventHandler<BaseEvent> handler = new EventHandler<>();
+
+    private final Map<String, JsonElement> parts = new HashMap<>();
+    private final Map<String, Object> values = new HashMap<>();
+
+    private JsonElement root;
+
+    AppSubscription(String id, String url){
+        this.id = id;
+        this.source = new EventSource(url, null, new EventSource.Listener() {
+            @Override
+            public void onEvent(String type, String data){
+                AppSubscription.this.onEvent(type, data);
+            }
+
+            @Override
+            public void onOpen(){
+                handler.execute(new ValueEvent(CONNECTION, true).setSource(AppSubscription.this));
+            }
+
+            @Override
+            public void onError(Exception e){
+                handler.execute(new ValueEvent(CONNECTION, false).setSource(AppSubscription.this));
+                // the others are retried
+                if (e != null && (source.isClosed() || e instanceof RuntimeException))
+                    LaebenApp.handleException(e);
+            }
+        });
+    }
+
+    /**
+     * @return handler of the change and connection events
+     */
+    public EventHandler<BaseEvent> getHandler(){
+        return handler;
+    }
+
+    /**
+     * @return the event source to configure the idle timeout and the backoff
+     */
+    public EventSource getEventSource(){
+        return source;
+    }
+
+    /**
+     * Open the stream.
+     * @return the subscription
+     */
+    public AppSubscription start(){
+        source.start();
+        return this;
+    }
+
+    public boolean isClosed(){
+        return source.isClosed();
+    }
+
+    /**
+     * Close the stream.
+     */
+    @Override
+    public void close(){
+        source.close();
+    }
+
+    private void onEvent(String type, String data){
+        switch (type){
+            case "put":
+            case "patch":
+                try{
+                    var event = JsonParser.parseString(data).getAsJsonObject();
+                    apply(type.equals("patch"), event.get("path").getAsString(), event.get("data"));
+                }
+                catch (JsonParseException | IllegalStateException | NullPointerException e){
+                    LaebenApp.handleException(new IOException("Invalid " + type + " event: " + data, e));
+                    return;
+                }
+                publish();
+                break;
+            case "cancel":
+                source.close();
+                handler.execute(new ValueEvent(CANCEL, data).setSource(this));
+                break;
+            case "auth_revoked":
+                source.reconnect();
+                break;
+            default:
+                // keep-alive
+                break;
+        }
+    }
+
+    /**
+     * Apply the event to the local copy of the node.
+     */
+    private void apply(boolean patch, String path, JsonElement data){
+        String[] keys = path.split("/");
+        int count = 0;
+        for (String k : keys){
+            if (!k.isEmpty())
+                keys[count++] = k;
+        }
+
+        if (patch){
+            if (data == null || !data.isJsonObject())
+                return;
+            for (var e : data.getAsJsonObject().entrySet())
+                root = set(root, keys, count, 0, e.getKey(), e.getValue());
+        }
+        else if (count == 0)
+            root = data == null || data.isJsonNull() ? null : data;
+        else
+            root = set(root, keys, count - 1, 0, keys[count - 1], data);
+    }
+
+    /**
+     * Set the child of the node at the path, removing it if the value is null.
+     * @return the updated node
+     */
+    private static JsonElement set(JsonElement node, String[] path, int count, int index, String key, JsonElement value){
+        JsonObject object = asObject(node);
+        if (index < count){
+            JsonElement child = set(object.get(path[index]), path, count, index + 1, key, value);
+            if (child == null)
+                object.remove(path[index]);
+            else
+                object.add(path[index], child);
+        }
+        else if (value == null || value.isJsonNull())
+            object.remove(key);
+        else
+            object.add(key, value);
+
+        return object.size() == 0 ? null : object;
+    }
+
+    /**
+     * Firebase sends the nodes with the numeric keys as arrays, their keys are the indexes.
+     */
+    private static JsonObject asObject(JsonElement node){
+        if (node instanceof JsonObject)
+            return (JsonObject) node;
+
+        var object = new JsonObject();
+        if (node instanceof JsonArray){
+            var array = node.getAsJsonArray();
+            for (int i = 0; i < array.size(); i++){
+                if (!array.get(i).isJsonNull())
+                    object.add(String.valueOf(i), array.get(i));
+            }
+        }
+
+        return object;
+    }
+
+    /**
+     * Publish the changed parts of the node.
+     */
+    private void publish(){
+        JsonObject node = root != null && root.isJsonObject() ? root.getAsJsonObject() : new JsonObject();
+
+        var app = new JsonObject();
+        for (String k : new String[]{ "name", "latest", "icon" }){
+            if (node.has(k))
+                app.add(k, node.get(k));
+        }
+
+        update(APP, app, x -> LaebenApp.fromJson(x, id));
+        update(LATEST, node.get("latestMeta"), x -> x.isJsonNull() ? null : LaebenApp.GSON.fromJson(x, LaebenAppFile.class));
+        JsonElement files = node.get("files");
+        update(FILES, files == null ? null : asObject(files), x -> LaebenApp.fromTree(x, LaebenAppFile.class));
+        update(ANNOUNCEMENTS, LaebenApp.activeAnnouncements(node.get("announcements")), x -> LaebenApp.fromTree(x, Announcement.class));
+    }
+
+    private void update(String key, JsonElement part, Function<JsonElement, Object> parse){
+        JsonElement old = parts.get(key);
+        if (parts.containsKey(key) && Objects.equals(old, part))
+            return;
+
+        Object value = part == null ? null : parse.apply(part);
+        parts.put(key, part == null ? null : part.deepCopy());
+        Object oldValue = values.put(key, value);
+
+        handler.execute(new ChangeEvent(key, oldValue, value).setSource(this));
+    }
+}
@@ -2,39 +2,144 @@ package com.laeben.core;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import com.google.gson.stream.JsonReader;
-import com.google.gson.stream.JsonToken;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
 import com.laeben.core.entity.Announcement;
 import com.laeben.core.entity.LaebenAppFile;
+import com.laeben.core.entity.LaebenAppPatch;
+import com.laeben.core.entity.Path;
 import com.laeben.core.entity.RequestParameter;
 import com.laeben.core.entity.TranslationBundle;
 import com.laeben.core.entity.exception.HttpException;
 import com.laeben.core.entity.exception.NoConnectionException;
+import com.laeben.core.entity.exception.StopException;
+import com.laeben.core.network.DeltaUpdater;
 import com.laeben.core.util.EventHandler;
+import com.laeben.core.util.ObjectCache;
 import com.laeben.core.network.requester.RequesterFactory;
 import com.laeben.core.util.events.BaseEvent;
 import com.laeben.core.util.events.ValueEvent;
 
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
 import java.time.Instant;
 import java.time.ZoneOffset;
+import java.time.Duration;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class LaebenApp {
     public static final String EXCEPTION = "exception";
     public static final String NET_EXCEPTION = "netException";
 
     private static final String FIREBASE = "https://laeben-update-default-rtdb.europe-west1.firebasedatabase.app/";
-    private static final RequesterFactory requester = new RequesterFactory(FIREBASE);
+    private static volatile RequesterFactory requester = new RequesterFactory(FIREBASE);
     private static final EventHandler<BaseEvent> handler = new EventHandler<>();
 
-    private static final Gson GSON = new GsonBuilder()
+    public static final long DEFAULT_CACHE_SIZE = 256;
+    public static final int DEFAULT_PAGE_SIZE = 100;
+
+    private static final ObjectCache<CacheKey, Object> cache = new ObjectCache<>(DEFAULT_CACHE_SIZE);
+    private static final Map<String, Duration> cacheTtls = new ConcurrentHashMap<>();
+    private static volatile Duration defaultCacheTtl = Duration.ZERO;
+
+    static final Gson GSON = new GsonBuilder()
             //.registerTypeAdapter(Date.class, new Announcement.DateFactory())
             .registerTypeAdapter(TranslationBundle.class, new TranslationBundle.TranslationBundleFactory())
             .create();
 
+    /**
+     * Way of {@link #prefetch(String, String, PrefetchMode)} to read the app metadata.
+     */
+    public enum PrefetchMode {
+        /**
+         * Send the requests of the app, latest file, files and announcements concurrently.
+         */
+        CONCURRENT,
+        /**
+         * Read the whole app node with a single request and take its children.
+         */
+        SINGLE_READ
+    }
+
+    /**
+     * App metadata read at once by {@link #prefetch(String, String, PrefetchMode)}.
+     */
+    public static class Snapshot {
+        private final LaebenApp app;
+        private final LaebenAppFile latest;
+        private final List<LaebenAppFile> files;
+        private final List<Announcement> announcements;
+
+        private Snapshot(LaebenApp app, LaebenAppFile latest, List<LaebenAppFile> files, List<Announcement> announcements){
+            this.app = app;
+            this.latest = latest;
+            this.files = files == null ? List.of() : Collections.unmodifiableList(files);
+            this.announcements = announcements == null ? List.of() : Collections.unmodifiableList(announcements);
+        }
+
+        public LaebenApp getApp(){
+            return app;
+        }
+
+        /**
+         * @return the latest file, null if not found
+         */
+        public LaebenAppFile getLatest(){
+            return latest;
+        }
+
+        public List<LaebenAppFile> getFiles(){
+            return files;
+        }
+
+        public List<Announcement> getAnnouncements(){
+            return announcements;
+        }
+    }
+
+    /**
+     * Key of the cached objects, the gson is compared by identity as its type adapters are not comparable.
+     */
+    private static class CacheKey {
+        private final String key;
+        private final Gson gson;
+
+        private CacheKey(String key, Gson gson){
+            this.key = key;
+            this.gson = gson;
+        }
+
+        @Override
+        public boolean equals(Object o){
+            if (!(o instanceof CacheKey))
+                return false;
+
+            var k = (CacheKey) o;
+            return key.equals(k.key) && gson == k.gson;
+        }
+
+        @Override
+        public int hashCode(){
+            return 31 * key.hashCode() + System.identityHashCode(gson);
+        }
+
+        @Override
+        public String toString(){
+            return key;
+        }
+    }
+
     private String id;
 
     private double latest;
@@ -65,6 +170,54 @@ public class LaebenApp {
         return icon;
     }
 
+    /**
+     * Get the requester factory of the app requests to configure them, for example to enable the cache.
+     * @return the requester factory
+     */
+    public static RequesterFactory getRequesterFactory(){
+        return requester;
+    }
+
+    /**
+     * Set the requester factory of the app requests, for example to use a local server.
+     * @param factory the factory, null for the default one
+     */
+    public static void setRequesterFactory(RequesterFactory factory){
+        requester = factory != null ? factory : new RequesterFactory(FIREBASE);
+    }
+
+    /**
+     * Get the cache of the deserialized objects of {@link #getObject(String, Gson, Class)} and {@link #getObjects(String, Gson, Class, List)}.
+     * <br/>
+     * Cached objects and the results of the concurrent loads are shared between the callers, so they should not be modified.
+     * @return the object cache
+     */
+    public static ObjectCache<?, Object> getObjectCache(){
+        return cache;
+    }
+
+    /**
+     * Set the cache time to live of the objects of the path.
+     * @param path object path, for example <i>latestMeta</i>
+     * @param ttl time to live, null for the default one
+     */
+    public static void setCacheTtl(String path, Duration ttl){
+        if (ttl == null)
+            cacheTtls.remove(path);
+        else
+            cacheTtls.put(path, ttl);
+    }
+
+    /**
+     * Set the cache time to live of the paths without their own time to live.
+     * <br/>
+     * Zero by default, objects are not cached.
+     * @param ttl time to live
+     */
+    public static void setDefaultCacheTtl(Duration ttl){
+        defaultCacheTtl = ttl == null ? Duration.ZERO : ttl;
+    }
+
     public static EventHandler<BaseEvent> getHandler(){
         return handler;
     }
@@ -83,6 +236,125 @@ public class LaebenApp {
         return app;
     }
 
+    /**
+     * Read the app, its latest file, files and announcements at once.
+     * <br/>
+     * If a request fails, the others still run to completion in the background and their results are dropped.
+     * @param id app id
+     * @param defaultName name of the app if it is not found
+     * @param mode way to read them
+     * @return the snapshot, with an offline app if the app is not found
+     */
+    public static Snapshot prefetch(String id, String defaultName, PrefetchMode mode) throws NoConnectionException, HttpException {
+        if (mode == PrefetchMode.SINGLE_READ)
+            return prefetchNode(id, defaultName);
+
+        var app = new LaebenApp(id, defaultName);
+        var latest = app.getObjectAsync("latestMeta", GSON, LaebenAppFile.class);
+        var files = async(app::getFiles);
+        var announcements = async(app::getAnnouncements);
+
+        // the other requests are not cancelled if this one fails, their loads may be shared by the object cache
+        LaebenApp main = get(id, defaultName);
+
+        return new Snapshot(main, join(latest), join(files), join(announcements));
+    }
+
+    /**
+     * Read the app metadata asynchronously.
+     * @see #prefetch(String, String, PrefetchMode)
+     */
+    public static CompletableFuture<Snapshot> prefetchAsync(String id, String defaultName, PrefetchMode mode){
+        return async(() -> prefetch(id, defaultName, mode));
+    }
+
+    private static Snapshot prefetchNode(String id, String defaultName) throws NoConnectionException, HttpException {
+        String str = requester.create().to("apps").to(id + ".json").getString();
+        JsonElement root = str == null ? null : JsonParser.parseString(str);
+        if (root == null || !root.isJsonObject())
+            return new Snapshot(LaebenApp.offline(id, defaultName), null, null, null);
+
+        JsonObject node = root.getAsJsonObject();
+        LaebenApp app = fromJson(node, id);
+
+        JsonElement latest = node.get("latestMeta");
+        return new Snapshot(app,
+                latest == null || latest.isJsonNull() ? null : GSON.fromJson(latest, LaebenAppFile.class),
+                fromTree(node.get("files"), LaebenAppFile.class),
+                fromTree(activeAnnouncements(node.get("announcements")), Announcement.class));
+    }
+
+    /**
+     * Filter the announcements like the <i>orderBy end_time, startAt now</i> query of {@link #getAnnouncements()}.
+     */
+    static JsonElement activeAnnouncements(JsonElement announcements){
+        if (announcements == null || !(announcements.isJsonObject() || announcements.isJsonArray()))
+            return null;
+
+        String now = announcementStart();
+        var active = new JsonArray();
+        children(announcements).stream()
+                .filter(x -> endTime(x) != null && endTime(x).compareTo(now) >= 0)
+                .sorted(Comparator.comparing(LaebenApp::endTime))
+                .forEach(active::add);
+
+        return active;
+    }
+
+    private static String endTime(JsonElement announcement){
+        if (!announcement.isJsonObject())
+            return null;
+
+        JsonElement end = announcement.getAsJsonObject().get("end_time");
+        return end instanceof JsonPrimitive && end.getAsJsonPrimitive().isString() ? end.getAsString() : null;
+    }
+
+    /**
+     * Truncated to seconds, so the concurrent calls send the same request.
+     */
+    private static String announcementStart(){
+        return Instant.now().truncatedTo(ChronoUnit.SECONDS).atZone(ZoneOffset.UTC).format(DateTimeFormatter.ISO_OFFSET_DATE_TIME);
+    }
+
+    private static List<JsonElement> children(JsonElement element){
+        var list = new ArrayList<JsonElement>();
+        if (element.isJsonArray())
+            element.getAsJsonArray().forEach(list::add);
+        else
+            element.getAsJsonObject().entrySet().forEach(x -> list.add(x.getValue()));
+
+        return list;
+    }
+
+    static <T> List<T> fromTree(JsonElement element, Class<T> clazz){
+        if (element == null || !(element.isJsonObject() || element.isJsonArray()))
+            return null;
+
+        var list = new ArrayList<T>();
+        for (JsonElement e : children(element)){
+            if (!e.isJsonNull())
+                list.add(GSON.fromJson(e, clazz));
+        }
+
+        return list;
+    }
+
+    static LaebenApp fromJson(JsonElement element, String id){
+        LaebenApp app = GSON.fromJson(element, LaebenApp.class);
+        app.id = id;
+        return app;
+    }
+
+    /**
+     * Subscribe to the changes of the app, its latest file, files and announcements instead of polling them.
+     * <br/>
+     * The subscription should be started after its handlers are added.
+     * @return the subscription, not started
+     */
+    public AppSubscription subscribe(){
+        return new AppSubscription(id, requester.create().to("apps").to(id + ".json").getUrl());
+    }
+
     public static LaebenApp offline(String id, String name){
         return new LaebenApp(id, name).asOffline();
     }
@@ -93,56 +365,153 @@ public class LaebenApp {
     }
 
     public <T> T getObject(String path, Gson gson, Class<T> clazz) throws NoConnectionException, HttpException {
-        String str = requester.create().to("apps").to(id).to(path + ".json").getString();
-        if (str == null || str.equals("null"))
-            return null;
-
-        T t;
-        if (gson != null)
-            t = gson.fromJson(str, clazz);
-        else
-            t = GSON.fromJson(str, clazz);
+        return cached(cacheKey(path, gson, clazz, null), path, () -> {
+            String str = requester.create().to("apps").to(id).to(path + ".json").getString();
+            if (str == null || str.equals("null"))
+                return null;
+
+            T t;
+            if (gson != null)
+                t = gson.fromJson(str, clazz);
+            else
+                t = GSON.fromJson(str, clazz);
+
+            return t;
+        });
+    }
 
-        return t;
+    /**
+     * Get the object asynchronously.
+     * @see #getObject(String, Gson, Class)
+     */
+    public <T> CompletableFuture<T> getObjectAsync(String path, Gson gson, Class<T> clazz){
+        return async(() -> getObject(path, gson, clazz));
     }
 
     public <T> List<T> getObjects(String path, Gson gson, Class<T> clazz, List<RequestParameter> filters) throws NoConnectionException, HttpException {
-        var r = requester.create().to("apps").to(id).to(path + ".json");
-        if (filters != null) r.withParams(filters);
-        InputStream str = r.getStream();
-        if (str == null)
-            return null;
+        return cached(cacheKey(path, gson, clazz, filters), path, () -> {
+            var r = requester.create().to("apps").to(id).to(path + ".json");
+            if (filters != null) r.withParams(filters);
+            return readObjects(r.getStream(), gson, clazz);
+        });
+    }
 
-        var list = new ArrayList<T>();
+    /**
+     * Stream the objects in pages of {@link #DEFAULT_PAGE_SIZE}.
+     * @see #streamObjects(String, Gson, Class, List, int)
+     */
+    public <T> Stream<T> streamObjects(String path, Class<T> clazz, List<RequestParameter> filters) throws NoConnectionException, HttpException {
+        return streamObjects(path, null, clazz, filters, DEFAULT_PAGE_SIZE);
+    }
 
-        if (gson == null)
-            gson = GSON;
-
-        boolean isArray;
-
-        try (final JsonReader reader = new JsonReader(new InputStreamReader(str))){
-            switch (reader.peek()){
-                case BEGIN_ARRAY:
-                    isArray = true;
-                    reader.beginArray();
-                    break;
-                case BEGIN_OBJECT:
-                    isArray = false;
-                    reader.beginObject();
-                    break;
-                default:
-                    return null;
-            }
+    /**
+     * Stream the objects lazily without holding the whole list in memory.
+     * <br/>
+     * Pages are requested ordered by key while the stream is consumed. Order of the objects in a page is not kept,
+     * Firebase does not sort the filtered results. The stream is not cached and should be closed if it is not consumed to its end.
+     * Failures of the later pages are thrown as {@link RuntimeException} wrapping the cause.
+     * @param path object path
+     * @param gson gson to deserialize the objects, null for the default one
+     * @param clazz class of the objects
+     * @param filters additional query parameters, can not contain orderBy, startAt or limitToFirst if paged
+     * @param pageSize object count of a page, zero or negative to read all objects from a single response
+     * @return the stream, empty if not found
+     */
+    public <T> Stream<T> streamObjects(String path, Gson gson, Class<T> clazz, List<RequestParameter> filters, int pageSize) throws NoConnectionException, HttpException {
+        var objects = new ObjectPages<>(params -> requester.create().to("apps").to(id).to(path + ".json").withParams(params).getStream(),
+                filters, gson == null ? GSON : gson, clazz, pageSize).open();
+
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(objects, Spliterator.NONNULL), false)
+                .onClose(objects::close);
+    }
+
+    /**
+     * Get the objects asynchronously.
+     * @see #getObjects(String, Gson, Class, List)
+     */
+    public <T> CompletableFuture<List<T>> getObjectsAsync(String path, Gson gson, Class<T> clazz, List<RequestParameter> filters){
+        return async(() -> getObjects(path, gson, clazz, filters));
+    }
+
+    /**
+     * Remove the cached objects of the path.
+     * @param path object path
+     */
+    public void invalidateCache(String path){
+        String prefix = id + "/" + path + "?";
+        cache.invalidateIf(x -> x.key.startsWith(prefix));
+    }
+
+    private CacheKey cacheKey(String path, Gson gson, Class<?> clazz, List<RequestParameter> filters){
+        var key = new StringBuilder(id).append('/').append(path).append('?');
+        if (filters != null)
+            key.append(filters.stream().map(x -> x.key() + "=" + x.value()).collect(Collectors.joining("&")));
+        key.append('#').append(clazz.getName());
+
+        return new CacheKey(key.toString(), gson);
+    }
 
-            while (reader.hasNext()){
-                if (!isArray) reader.nextName(); // index
-                if (reader.peek() == JsonToken.NULL) continue;
-                list.add(gson.fromJson(reader, clazz));
+    @SuppressWarnings("unchecked")
+    private static <T> T cached(CacheKey key, String path, Callable<T> loader) throws NoConnectionException, HttpException {
+        try{
+            return (T) cache.get(key, cacheTtls.getOrDefault(path, defaultCacheTtl), loader::call);
+        }
+        catch (ExecutionException e){
+            throw rethrow(e.getCause());
+        }
+    }
+
+    private static <T> T join(CompletableFuture<T> future) throws NoConnectionException, HttpException {
+        try{
+            return future.join();
+        }
+        catch (CompletionException e){
+            throw rethrow(e.getCause());
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable t) throws NoConnectionException, HttpException {
+        if (t instanceof NoConnectionException)
+            throw (NoConnectionException) t;
+        if (t instanceof HttpException)
+            throw (HttpException) t;
+        if (t instanceof RuntimeException)
+            throw (RuntimeException) t;
+
+        throw new RuntimeException(t);
+    }
+
+    private interface Fetch<T> {
+        T fetch() throws NoConnectionException, HttpException;
+    }
+
+    private static <T> CompletableFuture<T> async(Fetch<T> fetch){
+        return CompletableFuture.supplyAsync(() -> {
+            try{
+                return fetch.fetch();
+            }
+            catch (NoConnectionException | HttpException e){
+                throw new CompletionException(e);
             }
+        }, requester.getExecutor());
+    }
 
-            if (isArray) reader.endArray();
-            else reader.endObject();
-        } catch (IOException e) {
+    private static <T> List<T> readObjects(InputStream str, Gson gson, Class<T> clazz){
+        if (str == null)
+            return null;
+
+        var list = new ArrayList<T>();
+        try (var objects = new ObjectPages<>(str, gson == null ? GSON : gson, clazz)){
+            objects.open().forEachRemaining(list::add);
+            if (!objects.isFound())
+                return null;
+        }
+        catch (UncheckedIOException e){
+            handleException(e.getCause());
+            return null;
+        }
+        catch (NoConnectionException | HttpException e){
+            // the stream is already opened
             handleException(e);
             return null;
         }
@@ -150,17 +519,58 @@ public class LaebenApp {
         return Collections.unmodifiableList(list);
     }
 
+    /**
+     * Get the files with the versions in the range.
+     * @param fromVersion min version, inclusive
+     * @param toVersion max version, inclusive
+     * @return the files
+     */
     public List<LaebenAppFile> getFiles(double fromVersion, double toVersion) throws NoConnectionException, HttpException {
+        return getFiles().stream()
+                .filter(x -> x.version() >= fromVersion && x.version() <= toVersion)
+                .collect(Collectors.toUnmodifiableList());
+    }
+
+    /**
+     * @return all files of the app
+     */
+    public List<LaebenAppFile> getFiles() throws NoConnectionException, HttpException {
         final var filesTemp = getObjects("files", GSON, LaebenAppFile.class, null);
         if (filesTemp == null) return List.of();
 
         return Collections.unmodifiableList(filesTemp);
     }
 
+    /**
+     * @return binary patches between the file versions of the app
+     */
+    public List<LaebenAppPatch> getPatches() throws NoConnectionException, HttpException {
+        final var patchesTemp = getObjects("patches", GSON, LaebenAppPatch.class, null);
+        if (patchesTemp == null) return List.of();
+
+        return Collections.unmodifiableList(patchesTemp);
+    }
+
+    /**
+     * Update the installed file to the target file with the patches of the app, or download the target file
+     * if there is no patch chain between the versions.
+     * @param installed the installed file
+     * @param installedVersion version of the installed file
+     * @param target the target file, for example {@link #getLatest()}
+     * @param destination file path of the updated file, may be the installed file
+     * @param handle progress handling
+     * @return path of the updated file
+     * @see DeltaUpdater
+     */
+    public Path update(Path installed, double installedVersion, LaebenAppFile target, Path destination, boolean handle) throws NoConnectionException, HttpException, StopException, FileNotFoundException {
+        return DeltaUpdater.update(installed, installedVersion, target, getPatches(), destination, handle);
+    }
+
     public List<Announcement> getAnnouncements() throws NoConnectionException, HttpException {
+        String now = announcementStart();
         final var aTemp = getObjects("announcements", GSON, Announcement.class, List.of(
             new RequestParameter("orderBy", "\"end_time\""),
-            new RequestParameter("startAt", "\"" + Instant.now().atZone(ZoneOffset.UTC) + "\"")
+            new RequestParameter("startAt", "\"" + now + "\"")
         ));
         if (aTemp == null) return List.of();
 
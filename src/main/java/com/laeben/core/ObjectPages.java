@@ -0,0 +1,256 @@
+package com.laeben.core;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.laeben.core.entity.RequestParameter;
+import com.laeben.core.entity.exception.HttpException;
+import com.laeben.core.entity.exception.NoConnectionException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterator reading the children of a Firebase node one by one while they are received.
+ * <br/>
+ * With a page size, the node is requested in pages ordered by key, each page starting at the last key of the previous one,
+ * so only one page is read at a time. Without a page size, the whole node is read from one response.
+ * The connection of a page is closed when the page is read or the iterator is closed.
+ */
+class ObjectPages<T> implements Iterator<T>, Closeable {
+    interface Loader {
+        /**
+         * @param params query parameters of the page
+         * @return the page, null if not found
+         */
+        InputStream load(List<RequestParameter> params) throws NoConnectionException, HttpException;
+    }
+
+    private final Loader loader;
+    private final List<RequestParameter> filters;
+    private final Gson gson;
+    private final Class<T> clazz;
+    private final int pageSize;
+
+    private JsonReader reader;
+    private boolean isArray;
+    private boolean found;
+    private boolean done;
+
+    private int read;
+    private int index;
+    private String startKey;
+    private String lastKey;
+
+    private T next;
+
+    /**
+     * @param loader loader of the pages
+     * @param filters additional query parameters of every page, null for none
+     * @param gson gson to deserialize the children
+     * @param clazz class of the children
+     * @param pageSize children count of a page, zero or negative to read the node at once
+     */
+    ObjectPages(Loader loader, List<RequestParameter> filters, Gson gson, Class<T> clazz, int pageSize){
+        if (pageSize > 0 && filters != null && filters.stream().anyMatch(x -> x.key().equals("orderBy") || x.key().equals("startAt") || x.key().equals("limitToFirst")))
+            throw new IllegalArgumentException("Paged queries are ordered by key, orderBy, startAt and limitToFirst can not be used.");
+
+        this.loader = loader;
+        this.filters = filters == null ? List.of() : filters;
+        this.gson = gson;
+        this.clazz = clazz;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Iterate the children of an already opened node.
+     * @param stream the node
+     */
+    ObjectPages(InputStream stream, Gson gson, Class<T> clazz){
+        this(x -> stream, null, gson, clazz, 0);
+    }
+
+    /**
+     * Open the first page, so the errors of the first request are thrown to the caller.
+     * @return the iterator
+     */
+    ObjectPages<T> open() throws NoConnectionException, HttpException {
+        openPage();
+        return this;
+    }
+
+    @Override
+    public boolean hasNext(){
+        if (next != null)
+            return true;
+        if (done)
+            return false;
+
+        try{
+            return advance();
+        }
+        catch (IOException e){
+            close();
+            throw new UncheckedIOException(e);
+        }
+        catch (NoConnectionException | HttpException e){
+            close();
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public T next(){
+        if (!hasNext())
+            throw new NoSuchElementException();
+
+        T t = next;
+        next = null;
+        return t;
+    }
+
+    /**
+     * @return true if the node exists, even if it has no children
+     */
+    boolean isFound(){
+        return found;
+    }
+
+    @Override
+    public void close(){
+        done = true;
+        closeReader();
+    }
+
+    private boolean advance() throws IOException, NoConnectionException, HttpException {
+        while (true){
+            if (reader == null){
+                openPage();
+                if (done)
+                    return false;
+            }
+
+            if (!reader.hasNext()){
+                closeReader();
+                // a short page is the last one
+                if (pageSize <= 0 || read < limit())
+                    done = true;
+                else
+                    startKey = lastKey;
+                continue;
+            }
+
+            String key = isArray ? String.valueOf(index++) : reader.nextName();
+            read++;
+            if (lastKey == null || compareKeys(key, lastKey) > 0)
+                lastKey = key;
+
+            // startAt is inclusive, the first child was read by the previous page
+            if (reader.peek() == JsonToken.NULL || key.equals(startKey)){
+                reader.skipValue();
+                continue;
+            }
+
+            next = gson.fromJson(reader, clazz);
+            if (next != null)
+                return true;
+        }
+    }
+
+    private void openPage() throws NoConnectionException, HttpException {
+        if (reader != null || done)
+            return;
+
+        var params = new ArrayList<>(filters);
+        if (pageSize > 0){
+            params.add(new RequestParameter("orderBy", "\"$key\"").markAsEscapable());
+            params.add(new RequestParameter("limitToFirst", limit()));
+            if (startKey != null)
+                params.add(new RequestParameter("startAt", gson.toJson(startKey)).markAsEscapable());
+        }
+
+        InputStream stream = loader.load(params);
+        if (stream == null){
+            done = true;
+            return;
+        }
+
+        read = 0;
+        index = 0;
+        reader = new JsonReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
+        try{
+            switch (reader.peek()){
+                case BEGIN_ARRAY:
+                    isArray = true;
+                    found = true;
+                    reader.beginArray();
+                    break;
+                case BEGIN_OBJECT:
+                    isArray = false;
+                    found = true;
+                    reader.beginObject();
+                    break;
+                default:
+                    // null, the node does not exist
+                    close();
+                    break;
+            }
+        }
+        catch (IOException e){
+            close();
+            LaebenApp.handleException(e);
+        }
+    }
+
+    private int limit(){
+        return startKey == null ? pageSize : pageSize + 1;
+    }
+
+    private void closeReader(){
+        if (reader == null)
+            return;
+
+        try{
+            reader.close();
+        }
+        catch (IOException ignored){
+
+        }
+        reader = null;
+    }
+
+    /**
+     * Compare the keys like Firebase, the keys parsed as 32-bit integers are ordered numerically before the others.
+     * <br/>
+     * Firebase does not keep the order of the filtered children in the response, so the last key of a page is the greatest one.
+     */
+    static int compareKeys(String a, String b){
+        Integer x = toInt(a);
+        Integer y = toInt(b);
+        if (x != null && y != null)
+            return Integer.compare(x, y);
+        if (x != null)
+            return -1;
+        if (y != null)
+            return 1;
+
+        return a.compareTo(b);
+    }
+
+    private static Integer toInt(String key){
+        try{
+            return Integer.parseInt(key);
+        }
+        catch (NumberFormatException e){
+            return null;
+        }
+    }
+}
@@ -1,14 +1,23 @@
 package com.laeben.core.entity;
 
+import com.laeben.core.network.entity.NetworkToken;
+
 public class LaebenAppFile {
     private String url;
     private double version;
+    private String sha256;
+    private long size = -1;
 
     public LaebenAppFile(){}
     public LaebenAppFile(String url, double version) {
         this.url = url;
         this.version = version;
     }
+    public LaebenAppFile(String url, double version, String sha256, long size) {
+        this(url, version);
+        this.sha256 = sha256;
+        this.size = size;
+    }
 
     public String url(){
         return url;
@@ -17,4 +26,30 @@ public class LaebenAppFile {
     public double version(){
         return version;
     }
+
+    /**
+     * @return hex SHA-256 digest of the file, null if unknown
+     */
+    public String sha256(){
+        return sha256;
+    }
+
+    /**
+     * @return size of the file in bytes, negative if unknown
+     */
+    public long size(){
+        return size;
+    }
+
+    /**
+     * Create a network token verifying the digest and size of the file.
+     * @param destination file or directory path relative to useOriginalName
+     * @param useOriginalName use destination as a file or base dir
+     * @return the token
+     */
+    public NetworkToken toToken(Path destination, boolean useOriginalName){
+        return NetworkToken.create(url, destination, useOriginalName)
+                .withDigest(sha256)
+                .withSize(size);
+    }
 }
@@ -0,0 +1,66 @@
+package com.laeben.core.entity;
+
+import com.laeben.core.network.entity.NetworkToken;
+
+/**
+ * Binary patch converting the file of a version to the file of another version.
+ */
+public class LaebenAppPatch {
+    private double from;
+    private double to;
+    private String url;
+    private String sha256;
+    private long size = -1;
+
+    public LaebenAppPatch(){}
+    public LaebenAppPatch(double from, double to, String url, String sha256, long size) {
+        this.from = from;
+        this.to = to;
+        this.url = url;
+        this.sha256 = sha256;
+        this.size = size;
+    }
+
+    /**
+     * @return version of the file the patch applies to
+     */
+    public double from(){
+        return from;
+    }
+
+    /**
+     * @return version of the file the patch creates
+     */
+    public double to(){
+        return to;
+    }
+
+    public String url(){
+        return url;
+    }
+
+    /**
+     * @return hex SHA-256 digest of the patch, null if unknown
+     */
+    public String sha256(){
+        return sha256;
+    }
+
+    /**
+     * @return size of the patch in bytes, negative if unknown
+     */
+    public long size(){
+        return size;
+    }
+
+    /**
+     * Create a network token verifying the digest and size of the patch.
+     * @param destination file path of the patch
+     * @return the token
+     */
+    public NetworkToken toToken(Path destination){
+        return NetworkToken.create(url, destination, false)
+                .withDigest(sha256)
+                .withSize(size);
+    }
+}
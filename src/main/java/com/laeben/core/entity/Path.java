@@ -1,6 +1,10 @@
 package com.laeben.core.entity;
 
 import com.laeben.core.LaebenApp;
+import com.laeben.core.jfr.CopyEvent;
+import com.laeben.core.jfr.ExtractEvent;
+import com.laeben.core.jfr.FileOperationEvent;
+import com.laeben.core.jfr.ZipEvent;
 import com.laeben.core.util.StrUtil;
 import org.apache.commons.compress.archivers.ArchiveEntry;
 import org.apache.commons.compress.archivers.ArchiveInputStream;
@@ -331,13 +335,48 @@ public class Path{
      * @param fileName file name of the zip
      **/
     public void zip(Path fileName){
+        var event = new ZipEvent();
+        event.begin();
+        boolean success = true;
         try(ZipArchiveOutputStream stream = new ZipArchiveOutputStream(fileName.toFile())){
             zipEntry(stream, this, this);
             stream.closeArchiveEntry();
         }
         catch (IOException e){
+            success = false;
             LaebenApp.handleException(e);
         }
+        commit(event, fileName, success);
+    }
+
+    /**
+     * Commit the flight recorder event of the operation, the size of the path is calculated only if it is recorded.
+     */
+    private void commit(FileOperationEvent event, Path destination, boolean success){
+        event.end();
+        if (!event.shouldCommit())
+            return;
+
+        event.source = toString();
+        event.destination = destination == null ? null : destination.toString();
+        event.bytes = totalSize();
+        event.success = success;
+        event.commit();
+    }
+
+    /**
+     * @return size of the file or the files in the directory
+     */
+    private long totalSize(){
+        if (!root.toFile().isDirectory())
+            return getSize();
+
+        try (var walk = Files.walk(root)){
+            return walk.filter(Files::isRegularFile).mapToLong(x -> x.toFile().length()).sum();
+        }
+        catch (IOException | UncheckedIOException e){
+            return 0;
+        }
     }
 
     /**
@@ -465,24 +504,30 @@ public class Path{
         }
     }
 
-    private void extractTar(Path destination, List<String> exclude){
+    private boolean extractTar(Path destination, List<String> exclude){
         try(GZIPInputStream gzip = new GZIPInputStream(Files.newInputStream(toFile().toPath()));
             TarArchiveInputStream tar = new TarArchiveInputStream(gzip)){
             extract(destination, tar, exclude);
         }
         catch (IOException e){
             LaebenApp.handleException(e);
+            return false;
         }
+
+        return true;
     }
 
-    private void extractZip(Path destination, List<String> exclude){
+    private boolean extractZip(Path destination, List<String> exclude){
         try(FileInputStream file = new FileInputStream(root.toFile());
             ZipArchiveInputStream zip = new ZipArchiveInputStream(file)){
             extract(destination, zip, exclude);
         }
         catch (IOException e){
             LaebenApp.handleException(e);
+            return false;
         }
+
+        return true;
     }
 
     /**
@@ -522,11 +567,15 @@ public class Path{
         if (exclude == null)
             exclude = List.of();
 
+        var event = new ExtractEvent();
+        event.begin();
+        boolean success = false;
         if (getExtension().equals("gz")){
-            extractTar(destination, exclude);
+            success = extractTar(destination, exclude);
         }
         else if (getExtension().equals("zip") || getExtension().equals("jar"))
-            extractZip(destination, exclude);
+            success = extractZip(destination, exclude);
+        commit(event, destination, success);
     }
 
     /**
@@ -550,22 +599,39 @@ public class Path{
      * @param overwrite should be overwritten if exists
      **/
     public void copy(Path destination, boolean overwrite){
+        var event = new CopyEvent();
+        event.begin();
+        boolean success = copyTo(destination, overwrite);
+        commit(event, destination, success);
+    }
+
+    /**
+     * @return false if a file could not be copied
+     */
+    private boolean copyTo(Path destination, boolean overwrite){
         try{
             //destination.prepare();
             if (destination.exists() && !isDirectory()){
                 if (!overwrite)
-                    return;
+                    return true;
                 destination.delete();
             }
-            if (isDirectory())
-                getFiles().forEach(x -> x.copy(destination.to(x.getName())));
+            if (isDirectory()){
+                boolean success = true;
+                for (Path x : getFiles())
+                    success &= x.copyTo(destination.to(x.getName()), true);
+                return success;
+            }
             else{
                 destination.forceSetDir(false).prepare();
                 Files.copy(root, destination.root);
             }
         }catch (IOException e){
             LaebenApp.handleException(e);
+            return false;
         }
+
+        return true;
     }
 
     /**
@@ -0,0 +1,36 @@
+package com.laeben.core.entity.exception;
+
+import java.io.IOException;
+
+public class ChecksumException extends IOException {
+    private final String expected;
+    private final String actual;
+    private final String url;
+    public ChecksumException(String expected, String actual, String url){
+        this.expected = expected;
+        this.actual = actual;
+        this.url = url;
+    }
+
+    @Override
+    public String getMessage(){
+        return "Content of " + url + " does not match, expected " + expected + " but got " + actual;
+    }
+
+    @Override
+    public String getLocalizedMessage() {
+        return getMessage();
+    }
+
+    public String getExpected(){
+        return expected;
+    }
+
+    public String getActual(){
+        return actual;
+    }
+
+    public String getUrl(){
+        return url;
+    }
+}
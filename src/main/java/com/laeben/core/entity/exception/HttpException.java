@@ -6,10 +6,15 @@ public class HttpException extends Exception {
     private final String message;
     private final int code;
     private final String url;
+    private final String retryAfter;
     public HttpException(int code, String message, String url){
+        this(code, message, url, null);
+    }
+    public HttpException(int code, String message, String url, String retryAfter){
         this.code = code;
         this.message = message;
         this.url = url;
+        this.retryAfter = retryAfter;
     }
 
     public String getSimpleMessage(){
@@ -33,4 +38,11 @@ public class HttpException extends Exception {
     public int getStatusCode(){
         return code;
     }
+
+    /**
+     * @return <i>Retry-After</i> header of the response, null if none
+     */
+    public String getRetryAfter(){
+        return retryAfter;
+    }
 }
@@ -0,0 +1,13 @@
+package com.laeben.core.jfr;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * File or directory copied by {@link com.laeben.core.entity.Path#copy(com.laeben.core.entity.Path, boolean)}.
+ */
+@Name("com.laeben.Copy")
+@Label("Copy")
+public final class CopyEvent extends FileOperationEvent {
+
+}
@@ -0,0 +1,30 @@
+package com.laeben.core.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * Dispatch of an event to the handlers of an {@link com.laeben.core.util.EventHandler}.
+ * <br/>
+ * Asynchronous handlers are only scheduled while the event is dispatched.
+ * Dispatches shorter than the threshold are not recorded, as the progress events are dispatched very often.
+ */
+@Name("com.laeben.EventDispatch")
+@Label("Event Dispatch")
+@Category({ "Laeben", "Events" })
+@StackTrace(false)
+@Threshold("1 ms")
+public final class DispatchEvent extends Event {
+    @Label("Event Class")
+    public Class<?> eventClass;
+
+    @Label("Key")
+    @Description("Key of the key events")
+    public String key;
+
+    @Label("Handlers")
+    public int handlers;
+
+    @Label("Failures")
+    @Description("Count of the handlers throwing an exception")
+    public int failures;
+}
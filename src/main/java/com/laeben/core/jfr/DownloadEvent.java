@@ -0,0 +1,42 @@
+package com.laeben.core.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * A whole {@link com.laeben.core.network.Network#download} call.
+ */
+@Name("com.laeben.Download")
+@Label("Download")
+@Category({ "Laeben", "Network" })
+public final class DownloadEvent extends Event {
+    private static final EventType TYPE = EventType.getEventType(DownloadEvent.class);
+
+    @Label("URL")
+    public String url;
+
+    @Label("Destination")
+    public String destination;
+
+    @Label("Bytes")
+    @Description("Size of the downloaded file")
+    @DataAmount
+    public long bytes;
+
+    @Label("Attempts")
+    @Description("Count of the tried sources, zero if cached")
+    public int attempts;
+
+    @Label("Cached")
+    @Description("Already present or materialized from the content store")
+    public boolean cached;
+
+    @Label("Success")
+    public boolean success;
+
+    @Label("Error")
+    public String error;
+
+    public static boolean enabled(){
+        return TYPE.isEnabled();
+    }
+}
@@ -0,0 +1,13 @@
+package com.laeben.core.jfr;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Archive extracted by {@link com.laeben.core.entity.Path#extract}.
+ */
+@Name("com.laeben.Extract")
+@Label("Extract")
+public final class ExtractEvent extends FileOperationEvent {
+
+}
@@ -0,0 +1,23 @@
+package com.laeben.core.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * Base of the file events of {@link com.laeben.core.entity.Path}.
+ */
+@Category({ "Laeben", "File" })
+public abstract class FileOperationEvent extends Event {
+    @Label("Source")
+    public String source;
+
+    @Label("Destination")
+    public String destination;
+
+    @Label("Bytes")
+    @Description("Size of the source file or files")
+    @DataAmount
+    public long bytes;
+
+    @Label("Success")
+    public boolean success;
+}
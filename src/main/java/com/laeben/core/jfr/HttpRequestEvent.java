@@ -0,0 +1,54 @@
+package com.laeben.core.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * Request sent by {@link com.laeben.core.network.Network}, committed when its response body is read or closed.
+ */
+@Name("com.laeben.HttpRequest")
+@Label("HTTP Request")
+@Category({ "Laeben", "Network" })
+@StackTrace(false)
+public final class HttpRequestEvent extends Event {
+    private static final EventType TYPE = EventType.getEventType(HttpRequestEvent.class);
+
+    @Label("Method")
+    public String method;
+
+    @Label("URL")
+    public String url;
+
+    @Label("Status")
+    @Description("Status code of the last response, -1 if there is no response")
+    public int status;
+
+    @Label("Attempts")
+    public int attempts;
+
+    @Label("Bytes Sent")
+    @DataAmount
+    public long bytesSent;
+
+    @Label("Bytes Received")
+    @Description("Bytes of the response body before decoding")
+    @DataAmount
+    public long bytesReceived;
+
+    @Label("Time To First Byte")
+    @Description("Includes the DNS lookup, connection and TLS handshake")
+    @Timespan
+    public long firstByte;
+
+    @Label("Success")
+    public boolean success;
+
+    @Label("Error")
+    public String error;
+
+    /**
+     * @return true if the event is recorded, so the request should be timed
+     */
+    public static boolean enabled(){
+        return TYPE.isEnabled();
+    }
+}
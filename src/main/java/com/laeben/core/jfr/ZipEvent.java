@@ -0,0 +1,13 @@
+package com.laeben.core.jfr;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Zip archive created by {@link com.laeben.core.entity.Path#zip}.
+ */
+@Name("com.laeben.Zip")
+@Label("Zip")
+public final class ZipEvent extends FileOperationEvent {
+
+}
@@ -0,0 +1,106 @@
+package com.laeben.core.network;
+
+import com.laeben.core.network.entity.NetworkToken;
+import com.laeben.core.util.BandwidthLimiter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bandwidth limits of the network transfers.
+ * <br/>
+ * Downloads are limited by the global download limiter and the limiter of their token.
+ * Background downloads are also limited by the background limiter, which slows down
+ * to the yield rate while any foreground download is running.
+ */
+public class Bandwidth {
+    public static final long DEFAULT_YIELD_RATE = 64 * 1024;
+
+    private final BandwidthLimiter download = new BandwidthLimiter(BandwidthLimiter.UNLIMITED);
+    private final BandwidthLimiter upload = new BandwidthLimiter(BandwidthLimiter.UNLIMITED);
+    private final BandwidthLimiter background = new BandwidthLimiter(BandwidthLimiter.UNLIMITED);
+
+    private long backgroundRate = BandwidthLimiter.UNLIMITED;
+    private long yieldRate = DEFAULT_YIELD_RATE;
+    private int foreground;
+
+    Bandwidth(){
+
+    }
+
+    /**
+     * @return limiter of all downloads and the responses of the requests
+     */
+    public BandwidthLimiter getDownloadLimiter(){
+        return download;
+    }
+
+    /**
+     * @return limiter of all request bodies
+     */
+    public BandwidthLimiter getUploadLimiter(){
+        return upload;
+    }
+
+    /**
+     * Set the rate of the background downloads while no foreground download is running.
+     * @param bytesPerSecond the rate, {@link BandwidthLimiter#UNLIMITED} for no limit
+     */
+    public synchronized void setBackgroundRate(long bytesPerSecond){
+        backgroundRate = bytesPerSecond;
+        update();
+    }
+
+    /**
+     * Set the rate of the background downloads while a foreground download is running.
+     * @param bytesPerSecond the rate, {@link BandwidthLimiter#UNLIMITED} to not yield
+     */
+    public synchronized void setYieldRate(long bytesPerSecond){
+        yieldRate = bytesPerSecond;
+        update();
+    }
+
+    /**
+     * @return count of the running foreground downloads
+     */
+    public synchronized int getForegroundCount(){
+        return foreground;
+    }
+
+    synchronized void begin(NetworkToken token){
+        if (token.isBackground())
+            return;
+
+        foreground++;
+        update();
+    }
+
+    synchronized void end(NetworkToken token){
+        if (token.isBackground())
+            return;
+
+        foreground--;
+        update();
+    }
+
+    /**
+     * @return limiters of the download of the token
+     */
+    List<BandwidthLimiter> limiters(NetworkToken token){
+        List<BandwidthLimiter> limiters = new ArrayList<>(3);
+        limiters.add(download);
+        // always included so a limit set while the download is running applies
+        limiters.add(token.getBandwidthLimiter());
+        if (token.isBackground())
+            limiters.add(background);
+
+        return limiters;
+    }
+
+    private void update(){
+        if (foreground > 0 && yieldRate != BandwidthLimiter.UNLIMITED)
+            background.setRate(backgroundRate == BandwidthLimiter.UNLIMITED ? yieldRate : Math.min(backgroundRate, yieldRate));
+        else
+            background.setRate(backgroundRate);
+    }
+}
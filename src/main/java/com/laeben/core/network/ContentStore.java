@@ -0,0 +1,289 @@
+package com.laeben.core.network;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import com.laeben.core.LaebenApp;
+import com.laeben.core.entity.Path;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Store of the downloaded files keyed by their digest, so a file downloaded into many destinations is downloaded and stored once.
+ * <br/>
+ * Destinations are hard links to the stored files, or copies if the file system does not support the links.
+ * The destinations referencing a stored file are counted and {@link #collect()} deletes the files no destination references.
+ * <br/>
+ * Linked destinations share their content with the store, so they should be replaced instead of written in place.
+ * Stored files are verified before they are linked and the modified ones are removed.
+ */
+public class ContentStore {
+    private static final Gson GSON = new Gson();
+    private static final String OBJECTS = "objects";
+    private static final String REFS = "refs.json";
+
+    private final java.nio.file.Path root;
+    private Map<String, Set<String>> refs;
+
+    /**
+     * Create a new store.
+     * @param root store directory
+     */
+    public ContentStore(Path root){
+        this.root = root.toFile().toPath();
+    }
+
+    /**
+     * Materialize the stored file into the destination.
+     * @param destination the destination, replaced if it exists
+     * @param algorithm message digest algorithm
+     * @param digest hex digest
+     * @param size size of the file in bytes, negative if unknown
+     * @return true if the file was stored and materialized
+     */
+    public synchronized boolean materialize(Path destination, String algorithm, String digest, long size){
+        var object = object(algorithm, digest);
+        if (!Files.isRegularFile(object))
+            return false;
+
+        try{
+            var stored = Path.begin(object);
+            if ((size >= 0 && Files.size(object) != size) || !digest.equalsIgnoreCase(Network.getDigestIndex().digest(stored, algorithm))){
+                // modified through a linked destination
+                Files.deleteIfExists(object);
+                Network.getDigestIndex().remove(stored);
+                if (refs().remove(key(algorithm, digest)) != null)
+                    save();
+                return false;
+            }
+
+            var target = destination.toFile().toPath().toAbsolutePath();
+            if (!Files.exists(target) || !Files.isSameFile(object, target)){
+                Files.createDirectories(target.getParent());
+                var temp = target.resolveSibling(target.getFileName() + ".link");
+                Files.deleteIfExists(temp);
+                link(object, temp);
+                move(temp, target);
+            }
+
+            reference(algorithm, digest, target);
+            return true;
+        }
+        catch (IOException e){
+            LaebenApp.handleException(e);
+            return false;
+        }
+    }
+
+    /**
+     * Add the downloaded file to the store and reference it by the file.
+     * <br/>
+     * The file is linked into the store if the digest is not stored yet.
+     * @param file the file
+     * @param algorithm message digest algorithm
+     * @param digest verified hex digest of the file
+     */
+    public synchronized void add(Path file, String algorithm, String digest){
+        var object = object(algorithm, digest);
+        var source = file.toFile().toPath().toAbsolutePath();
+        try{
+            if (!Files.isRegularFile(object)){
+                Files.createDirectories(object.getParent());
+                var temp = object.resolveSibling(object.getFileName() + ".tmp");
+                Files.deleteIfExists(temp);
+                link(source, temp);
+                move(temp, object);
+            }
+
+            reference(algorithm, digest, source);
+        }
+        catch (IOException e){
+            LaebenApp.handleException(e);
+        }
+    }
+
+    /**
+     * Remove the references of the destination, for example before it is deleted.
+     * @param destination the destination
+     */
+    public synchronized void release(Path destination){
+        String path = destination.toFile().toPath().toAbsolutePath().toString();
+        boolean changed = false;
+        for (var it = refs().values().iterator(); it.hasNext(); ){
+            var set = it.next();
+            changed |= set.remove(path);
+            if (set.isEmpty())
+                it.remove();
+        }
+
+        if (changed)
+            save();
+    }
+
+    /**
+     * Get the count of the destinations referencing the stored file.
+     * @param algorithm message digest algorithm
+     * @param digest hex digest
+     * @return the count
+     */
+    public synchronized int getReferenceCount(String algorithm, String digest){
+        var set = refs().get(key(algorithm, digest));
+        return set == null ? 0 : set.size();
+    }
+
+    /**
+     * Remove the references of the destinations no longer having the content and delete the files no destination references.
+     * @return total size of the deleted files in bytes
+     */
+    public synchronized long collect(){
+        var objects = root.resolve(OBJECTS);
+        if (!Files.isDirectory(objects))
+            return 0;
+
+        List<java.nio.file.Path> files;
+        try (Stream<java.nio.file.Path> walk = Files.walk(objects)){
+            files = walk.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+        catch (IOException e){
+            LaebenApp.handleException(e);
+            return 0;
+        }
+
+        long freed = 0;
+        boolean changed = false;
+        var keys = new HashSet<String>();
+        for (var object : files){
+            var rel = objects.relativize(object);
+            if (rel.getNameCount() != 3)
+                continue;
+
+            String algorithm = rel.getName(0).toString();
+            String digest = rel.getFileName().toString();
+            String key = key(algorithm, digest);
+            keys.add(key);
+
+            var set = refs().get(key);
+            if (set != null)
+                changed |= set.removeIf(x -> !references(object, Path.begin(java.nio.file.Path.of(x)), algorithm, digest));
+            if (set != null && !set.isEmpty())
+                continue;
+
+            try{
+                long size = Files.size(object);
+                Files.delete(object);
+                Network.getDigestIndex().remove(Path.begin(object));
+                freed += size;
+            }
+            catch (IOException e){
+                LaebenApp.handleException(e);
+                continue;
+            }
+            changed |= refs().remove(key) != null;
+        }
+
+        // references of the deleted files
+        changed |= refs().keySet().retainAll(keys);
+        if (changed)
+            save();
+
+        return freed;
+    }
+
+    /**
+     * Check the destination still has the content of the stored file.
+     */
+    private static boolean references(java.nio.file.Path object, Path destination, String algorithm, String digest){
+        var target = destination.toFile().toPath();
+        if (!Files.isRegularFile(target))
+            return false;
+
+        try{
+            return Files.isSameFile(object, target) || digest.equalsIgnoreCase(Network.getDigestIndex().digest(destination, algorithm));
+        }
+        catch (IOException e){
+            return false;
+        }
+    }
+
+    private void reference(String algorithm, String digest, java.nio.file.Path destination){
+        if (refs().computeIfAbsent(key(algorithm, digest), x -> new HashSet<>()).add(destination.toString()))
+            save();
+    }
+
+    /**
+     * Hard link the file, or copy it if the link is not supported, for example between two file systems.
+     */
+    private static void link(java.nio.file.Path source, java.nio.file.Path link) throws IOException {
+        try{
+            Files.createLink(link, source);
+        }
+        catch (IOException | UnsupportedOperationException e){
+            Files.copy(source, link, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void move(java.nio.file.Path source, java.nio.file.Path target) throws IOException {
+        try{
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+        catch (AtomicMoveNotSupportedException e){
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private java.nio.file.Path object(String algorithm, String digest){
+        String d = digest.toLowerCase(Locale.ROOT);
+        return root.resolve(OBJECTS).resolve(algorithm(algorithm)).resolve(d.substring(0, Math.min(2, d.length()))).resolve(d);
+    }
+
+    private static String key(String algorithm, String digest){
+        return algorithm(algorithm) + "/" + digest.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @return the algorithm as a directory name, for example <i>sha-256</i>
+     */
+    private static String algorithm(String algorithm){
+        return algorithm.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9-]", "");
+    }
+
+    private Map<String, Set<String>> refs(){
+        if (refs != null)
+            return refs;
+
+        refs = new HashMap<>();
+        var file = root.resolve(REFS);
+        if (!Files.isRegularFile(file))
+            return refs;
+
+        try{
+            Map<String, Set<String>> read = GSON.fromJson(Files.readString(file), new TypeToken<Map<String, HashSet<String>>>(){}.getType());
+            if (read != null)
+                refs.putAll(read);
+        }
+        catch (IOException | JsonParseException e){
+            LaebenApp.handleException(e);
+        }
+
+        return refs;
+    }
+
+    private void save(){
+        try{
+            Files.createDirectories(root);
+            var target = root.resolve(REFS);
+            var temp = target.resolveSibling(REFS + ".tmp");
+            Files.writeString(temp, GSON.toJson(refs));
+            move(temp, target);
+        }
+        catch (IOException e){
+            LaebenApp.handleException(e);
+        }
+    }
+}
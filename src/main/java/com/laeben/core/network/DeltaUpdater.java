@@ -0,0 +1,178 @@
+package com.laeben.core.network;
+
+import com.laeben.core.LaebenApp;
+import com.laeben.core.entity.LaebenAppFile;
+import com.laeben.core.entity.LaebenAppPatch;
+import com.laeben.core.entity.Path;
+import com.laeben.core.entity.exception.ChecksumException;
+import com.laeben.core.entity.exception.HttpException;
+import com.laeben.core.entity.exception.NoConnectionException;
+import com.laeben.core.entity.exception.StopException;
+import com.laeben.core.network.entity.NetworkToken;
+import com.laeben.core.util.BsPatch;
+
+import java.io.BufferedOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.*;
+
+/**
+ * Updates an installed file with a chain of binary patches instead of downloading the whole new file.
+ * <br/>
+ * The chain with the smallest total size is used. Falls back to the full download when no chain exists,
+ * the chain is not smaller than the file, or the patched file does not match the digest of the new file.
+ */
+public class DeltaUpdater {
+    private static final String DIGEST_ALGORITHM = NetworkToken.DEFAULT_DIGEST_ALGORITHM;
+
+    private DeltaUpdater(){
+
+    }
+
+    /**
+     * Find the patch chain with the smallest total size between the versions.
+     * <br/>
+     * Patches of unknown size count as large as the target file.
+     * @param patches available patches
+     * @param from installed version
+     * @param to target version
+     * @param fileSize size of the target file, negative if unknown
+     * @return patches in order, null if no chain exists
+     */
+    public static List<LaebenAppPatch> findChain(List<LaebenAppPatch> patches, double from, double to, long fileSize){
+        if (patches == null || Double.compare(from, to) == 0)
+            return null;
+
+        long unknown = fileSize >= 0 ? fileSize : 1;
+        Map<Double, Long> costs = new HashMap<>();
+        Map<Double, LaebenAppPatch> previous = new HashMap<>();
+        var queue = new PriorityQueue<Map.Entry<Double, Long>>(Map.Entry.comparingByValue());
+        costs.put(from, 0L);
+        queue.add(Map.entry(from, 0L));
+
+        while (!queue.isEmpty()){
+            var e = queue.poll();
+            double version = e.getKey();
+            if (e.getValue() > costs.get(version))
+                continue;
+            if (Double.compare(version, to) == 0)
+                break;
+
+            for (LaebenAppPatch p : patches){
+                if (p == null || p.url() == null || Double.compare(p.from(), version) != 0)
+                    continue;
+
+                long cost = e.getValue() + (p.size() >= 0 ? p.size() : unknown);
+                Long old = costs.get(p.to());
+                if (old == null || cost < old){
+                    costs.put(p.to(), cost);
+                    previous.put(p.to(), p);
+                    queue.add(Map.entry(p.to(), cost));
+                }
+            }
+        }
+
+        if (!previous.containsKey(to))
+            return null;
+
+        var chain = new ArrayList<LaebenAppPatch>();
+        for (double v = to; Double.compare(v, from) != 0; v = previous.get(v).from())
+            chain.add(previous.get(v));
+        Collections.reverse(chain);
+
+        return chain;
+    }
+
+    /**
+     * Update the installed file to the target file.
+     * @param installed the installed file
+     * @param installedVersion version of the installed file
+     * @param target the target file
+     * @param patches available patches
+     * @param destination file path of the updated file, may be the installed file
+     * @param handle progress handling
+     * @return path of the updated file
+     */
+    public static Path update(Path installed, double installedVersion, LaebenAppFile target, List<LaebenAppPatch> patches, Path destination, boolean handle) throws NoConnectionException, StopException, HttpException, FileNotFoundException {
+        List<LaebenAppPatch> chain = null;
+        // the result could not be verified without the digest
+        if (target.sha256() != null && installed != null && installed.toFile().isFile())
+            chain = findChain(patches, installedVersion, target.version(), target.size());
+
+        if (chain != null && (target.size() < 0 || size(chain) < target.size())){
+            try{
+                if (patch(installed, chain, target, destination, handle))
+                    return destination;
+            }
+            catch (IOException | HttpException e){
+                LaebenApp.handleException(e);
+            }
+        }
+
+        return Network.download(target.toToken(destination, false), handle);
+    }
+
+    /**
+     * Download and apply the patches.
+     * @return false if the patched file does not match the target
+     */
+    private static boolean patch(Path installed, List<LaebenAppPatch> chain, LaebenAppFile target, Path destination, boolean handle) throws IOException, NoConnectionException, StopException, HttpException {
+        Path dir = destination.parent().to(destination.getName() + ".delta").forceSetDir(true).prepare();
+        try{
+            java.nio.file.Path current = installed.toFile().toPath();
+            String digest = null;
+            long size = 0;
+            for (int i = 0; i < chain.size(); i++){
+                LaebenAppPatch p = chain.get(i);
+                Path patch = Network.downloadOrThrow(p.toToken(dir.to(i + ".patch")), handle);
+
+                java.nio.file.Path next = dir.to(i + ".bin").toFile().toPath();
+                MessageDigest md = DigestIndex.newDigest(DIGEST_ALGORITHM);
+                try (OutputStream out = new DigestOutputStream(new BufferedOutputStream(Files.newOutputStream(next), 1 << 16), md)){
+                    size = BsPatch.apply(current, patch.toFile().toPath(), out);
+                }
+                digest = DigestIndex.toHex(md.digest());
+
+                Files.deleteIfExists(patch.toFile().toPath());
+                if (i > 0)
+                    Files.deleteIfExists(current);
+                current = next;
+            }
+
+            if ((target.size() >= 0 && size != target.size()) || !target.sha256().equalsIgnoreCase(digest)){
+                LaebenApp.handleException(new ChecksumException(target.sha256(), digest, target.url()));
+                return false;
+            }
+
+            var dest = destination.toFile().toPath();
+            try{
+                Files.move(current, dest, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            catch (AtomicMoveNotSupportedException e){
+                Files.move(current, dest, StandardCopyOption.REPLACE_EXISTING);
+            }
+            Network.getDigestIndex().put(destination, DIGEST_ALGORITHM, target.sha256().toLowerCase(Locale.ROOT));
+            var store = Network.getContentStore();
+            if (store != null)
+                store.add(destination, DIGEST_ALGORITHM, target.sha256());
+
+            return true;
+        }
+        finally {
+            dir.delete();
+        }
+    }
+
+    /**
+     * @return total size of the patches of known size
+     */
+    private static long size(List<LaebenAppPatch> chain){
+        return chain.stream().mapToLong(x -> Math.max(0, x.size())).sum();
+    }
+}
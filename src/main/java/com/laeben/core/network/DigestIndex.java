@@ -0,0 +1,175 @@
+package com.laeben.core.network;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import com.laeben.core.LaebenApp;
+import com.laeben.core.entity.Path;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Index of the file digests keyed by the path, size and last modified date of the files.
+ * <br/>
+ * Unchanged files are not hashed again. The index is kept in memory only if it has no file.
+ */
+public class DigestIndex {
+    private static final Gson GSON = new Gson();
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private static class Entry {
+        private long size;
+        private long modified;
+        private String algorithm;
+        private String digest;
+    }
+
+    private final Path file;
+    private Map<String, Entry> entries;
+
+    /**
+     * Create a new index.
+     * @param file index file, null for a memory only index
+     */
+    public DigestIndex(Path file){
+        this.file = file;
+    }
+
+    /**
+     * Get the digest of the file, hashing it only if it has changed since it was indexed.
+     * @param path the file
+     * @param algorithm message digest algorithm
+     * @return hex digest, null if the file does not exist
+     */
+    public String digest(Path path, String algorithm) throws IOException {
+        var f = path.toFile();
+        if (!f.isFile())
+            return null;
+
+        String key = f.getAbsolutePath();
+        long size = f.length();
+        long modified = f.lastModified();
+        synchronized (this){
+            Entry e = entries().get(key);
+            if (e != null && e.size == size && e.modified == modified && algorithm.equals(e.algorithm))
+                return e.digest;
+        }
+
+        String digest = hash(path, algorithm);
+        put(path, algorithm, digest);
+        return digest;
+    }
+
+    /**
+     * Index the digest of the file in its current state.
+     * @param path the file
+     * @param algorithm message digest algorithm
+     * @param digest hex digest
+     */
+    public synchronized void put(Path path, String algorithm, String digest){
+        var f = path.toFile();
+        var e = new Entry();
+        e.size = f.length();
+        e.modified = f.lastModified();
+        e.algorithm = algorithm;
+        e.digest = digest;
+        entries().put(f.getAbsolutePath(), e);
+        save();
+    }
+
+    /**
+     * Remove the file from the index.
+     * @param path the file
+     */
+    public synchronized void remove(Path path){
+        if (entries().remove(path.toFile().getAbsolutePath()) != null)
+            save();
+    }
+
+    private Map<String, Entry> entries(){
+        if (entries != null)
+            return entries;
+
+        entries = new HashMap<>();
+        if (file == null || !file.exists())
+            return entries;
+
+        try{
+            Map<String, Entry> read = GSON.fromJson(file.read(), new TypeToken<Map<String, Entry>>(){}.getType());
+            if (read != null)
+                entries.putAll(read);
+        }
+        catch (JsonParseException ignored){
+
+        }
+
+        return entries;
+    }
+
+    private void save(){
+        if (file == null)
+            return;
+
+        try{
+            var target = file.toFile().toPath();
+            Files.createDirectories(target.getParent());
+            var temp = target.resolveSibling(target.getFileName() + ".tmp");
+            Files.writeString(temp, GSON.toJson(entries));
+            try{
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            }
+            catch (AtomicMoveNotSupportedException e){
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        catch (IOException e){
+            LaebenApp.handleException(e);
+        }
+    }
+
+    /**
+     * Hash the file.
+     * @param path the file
+     * @param algorithm message digest algorithm
+     * @return hex digest
+     */
+    public static String hash(Path path, String algorithm) throws IOException {
+        MessageDigest digest = newDigest(algorithm);
+        try (FileChannel channel = FileChannel.open(path.toFile().toPath(), StandardOpenOption.READ)){
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            while (channel.read(buffer) != -1){
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+
+        return toHex(digest.digest());
+    }
+
+    static MessageDigest newDigest(String algorithm) throws IOException {
+        try{
+            return MessageDigest.getInstance(algorithm);
+        }
+        catch (NoSuchAlgorithmException e){
+            throw new IOException(e);
+        }
+    }
+
+    static String toHex(byte[] bytes){
+        var hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes)
+            hex.append(Character.forDigit((b >> 4) & 15, 16)).append(Character.forDigit(b & 15, 16));
+        return hex.toString();
+    }
+}
@@ -0,0 +1,290 @@
+package com.laeben.core.network;
+
+import com.laeben.core.entity.Path;
+import com.laeben.core.entity.exception.StopException;
+import com.laeben.core.network.entity.NetworkToken;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+
+/**
+ * Download queue with global and per host concurrency limits.
+ * <br/>
+ * Also tracks every running download of {@link Network#download(NetworkToken, boolean)}.
+ */
+public class DownloadScheduler {
+    public static final int DEFAULT_MAX_CONCURRENT = 8;
+    public static final int DEFAULT_MAX_PER_HOST = 4;
+
+    /**
+     * Aggregate result of a batch.
+     */
+    public static class Result {
+        private final Map<NetworkToken, Path> completed;
+        private final Map<NetworkToken, Throwable> failed;
+
+        private Result(Map<NetworkToken, Path> completed, Map<NetworkToken, Throwable> failed){
+            this.completed = Collections.unmodifiableMap(completed);
+            this.failed = Collections.unmodifiableMap(failed);
+        }
+
+        /**
+         * @return downloaded paths by their tokens
+         */
+        public Map<NetworkToken, Path> getCompleted(){
+            return completed;
+        }
+
+        /**
+         * @return failures by their tokens
+         */
+        public Map<NetworkToken, Throwable> getFailed(){
+            return failed;
+        }
+
+        public boolean isSuccessful(){
+            return failed.isEmpty();
+        }
+    }
+
+    /**
+     * Submitted batch of downloads.
+     */
+    public static class Batch {
+        private final List<CompletableFuture<Path>> futures;
+        private final CompletableFuture<Result> result;
+
+        private Batch(List<CompletableFuture<Path>> futures, CompletableFuture<Result> result){
+            this.futures = futures;
+            this.result = result;
+        }
+
+        /**
+         * @return futures of the downloads in the submission order
+         */
+        public List<CompletableFuture<Path>> getFutures(){
+            return futures;
+        }
+
+        /**
+         * @return future completing when all downloads of the batch are finished, never completes exceptionally
+         */
+        public CompletableFuture<Result> getResult(){
+            return result;
+        }
+    }
+
+    private static class Task {
+        private final NetworkToken token;
+        private final boolean handle;
+        private final String host;
+        private final CompletableFuture<Path> future = new CompletableFuture<>();
+
+        private Task(NetworkToken token, boolean handle){
+            this.token = token;
+            this.handle = handle;
+            this.host = hostOf(token.getUrl());
+        }
+    }
+
+    private final ExecutorService executor = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "laeben-download");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final Deque<Task> queue = new ArrayDeque<>();
+    private final Map<String, Integer> hosts = new HashMap<>();
+    private final Set<NetworkToken> active = ConcurrentHashMap.newKeySet();
+
+    private int running;
+    private int maxConcurrent;
+    private int maxPerHost;
+
+    public DownloadScheduler(int maxConcurrent, int maxPerHost){
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.maxPerHost = Math.max(1, maxPerHost);
+    }
+
+    /**
+     * Set the max count of the downloads running at the same time.
+     * @param maxConcurrent the limit
+     */
+    public void setMaxConcurrent(int maxConcurrent){
+        synchronized (this){
+            this.maxConcurrent = Math.max(1, maxConcurrent);
+        }
+        dispatch();
+    }
+
+    /**
+     * Set the max count of the downloads running at the same time from the same host.
+     * @param maxPerHost the limit
+     */
+    public void setMaxPerHost(int maxPerHost){
+        synchronized (this){
+            this.maxPerHost = Math.max(1, maxPerHost);
+        }
+        dispatch();
+    }
+
+    public synchronized int getMaxConcurrent(){
+        return maxConcurrent;
+    }
+
+    public synchronized int getMaxPerHost(){
+        return maxPerHost;
+    }
+
+    /**
+     * Queue a download.
+     * <br/>
+     * Cancelling the returned future stops the token.
+     * @param token network token
+     * @param handle progress handling
+     * @return future of the downloaded path, completed exceptionally if the download fails
+     */
+    public CompletableFuture<Path> submit(NetworkToken token, boolean handle){
+        Task task = new Task(token, handle);
+        task.future.whenComplete((p, e) -> {
+            if (e instanceof CancellationException)
+                token.stop();
+        });
+
+        synchronized (this){
+            queue.add(task);
+        }
+        dispatch();
+
+        return task.future;
+    }
+
+    /**
+     * Queue a batch of downloads.
+     * @param tokens network tokens
+     * @param handle progress handling
+     * @return the batch
+     */
+    public Batch submitAll(Collection<NetworkToken> tokens, boolean handle){
+        var futures = tokens.stream().map(x -> submit(x, handle)).collect(Collectors.toUnmodifiableList());
+        var list = List.copyOf(tokens);
+
+        var result = CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).handle((v, e) -> {
+            Map<NetworkToken, Path> completed = new LinkedHashMap<>();
+            Map<NetworkToken, Throwable> failed = new LinkedHashMap<>();
+            for (int i = 0; i < futures.size(); i++){
+                try{
+                    completed.put(list.get(i), futures.get(i).join());
+                }
+                catch (CompletionException | CancellationException ex){
+                    failed.put(list.get(i), ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex);
+                }
+            }
+            return new Result(completed, failed);
+        });
+
+        return new Batch(futures, result);
+    }
+
+    /**
+     * @return count of the downloads waiting in the queue
+     */
+    public synchronized int getQueueDepth(){
+        return queue.size();
+    }
+
+    /**
+     * @return count of the running downloads started by the scheduler
+     */
+    public synchronized int getInFlightCount(){
+        return running;
+    }
+
+    /**
+     * @return running downloads including the ones started out of the scheduler
+     */
+    public Set<NetworkToken> getCurrentDownloads(){
+        return Collections.unmodifiableSet(active);
+    }
+
+    public boolean hasDownloads(){
+        return !active.isEmpty() || getQueueDepth() > 0;
+    }
+
+    /**
+     * Stop all running and queued downloads.
+     */
+    public void stop(){
+        List<Task> dropped;
+        synchronized (this){
+            dropped = new ArrayList<>(queue);
+            queue.clear();
+        }
+
+        for (Task t : dropped){
+            t.token.stop();
+            t.future.completeExceptionally(new StopException());
+        }
+
+        active.forEach(NetworkToken::stop);
+    }
+
+    void track(NetworkToken token){
+        active.add(token);
+    }
+
+    void untrack(NetworkToken token){
+        active.remove(token);
+    }
+
+    private void dispatch(){
+        List<Task> started = new ArrayList<>();
+        synchronized (this){
+            var it = queue.iterator();
+            while (running < maxConcurrent && it.hasNext()){
+                Task t = it.next();
+                if (hosts.getOrDefault(t.host, 0) >= maxPerHost)
+                    continue;
+
+                it.remove();
+                running++;
+                hosts.merge(t.host, 1, Integer::sum);
+                started.add(t);
+            }
+        }
+
+        for (Task t : started)
+            executor.execute(() -> run(t));
+    }
+
+    private void run(Task task){
+        try{
+            if (task.future.isDone() || task.token.stopRequested())
+                task.future.completeExceptionally(new StopException());
+            else
+                task.future.complete(Network.downloadOrThrow(task.token, task.handle));
+        }
+        catch (Throwable e){
+            task.future.completeExceptionally(e);
+        }
+        finally {
+            synchronized (this){
+                running--;
+                hosts.computeIfPresent(task.host, (k, v) -> v > 1 ? v - 1 : null);
+            }
+            dispatch();
+        }
+    }
+
+    private static String hostOf(String url){
+        try{
+            return new URL(url.replace(" ", "%20")).getHost();
+        }
+        catch (MalformedURLException e){
+            return "";
+        }
+    }
+}
@@ -0,0 +1,658 @@
+package com.laeben.core.network;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.laeben.core.entity.Path;
+import com.laeben.core.entity.RequestParameter;
+import com.laeben.core.entity.exception.ChecksumException;
+import com.laeben.core.entity.exception.HttpException;
+import com.laeben.core.entity.exception.NoConnectionException;
+import com.laeben.core.entity.exception.StopException;
+import com.laeben.core.network.entity.NetworkToken;
+import com.laeben.core.network.transport.TransportRequest;
+import com.laeben.core.network.transport.TransportResponse;
+import com.laeben.core.util.BandwidthLimiter;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.*;
+
+/**
+ * Download engine behind {@link Network#download(NetworkToken, boolean)}.
+ * <br/>
+ * Content is written to a <i>.part</i> file next to the destination with a <i>.part.json</i> checkpoint
+ * holding the validators and the committed bytes of every range. Interrupted downloads continue
+ * from the checkpoint with <i>Range</i> and <i>If-Range</i> and the part file is moved over the destination
+ * when it is complete.
+ * <br/>
+ * The expected digest of the token is computed while a single stream is written and
+ * after the download for the segmented ones.
+ */
+final class Downloader {
+    static final String PART = ".part";
+    static final String CHECKPOINT = ".part.json";
+
+    /**
+     * System property switching the download loop back to the heap buffer copy.
+     */
+    static final String LEGACY_IO = "laeben.download.legacyio";
+
+    private static final int MIN_CHUNK_SIZE = 16384;
+    private static final int MAX_CHUNK_SIZE = 1 << 20;
+    private static final long FAST_CHUNK = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final long SLOW_CHUNK = TimeUnit.MILLISECONDS.toNanos(250);
+    private static final int MAX_POOLED_BUFFERS = 4;
+    private static final BlockingQueue<ByteBuffer> BUFFERS = new ArrayBlockingQueue<>(MAX_POOLED_BUFFERS);
+    private static final long CHECKPOINT_INTERVAL = 1000;
+    private static final Gson GSON = new Gson();
+
+    private static final ExecutorService POOL = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "laeben-download-segment");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * Thrown when the server answers a range request with something else than the requested range.
+     */
+    private static class RangeIgnoredException extends IOException {
+
+    }
+
+    static class Range {
+        private long start;
+        private long end;
+        private volatile long position;
+
+        Range(long start, long end){
+            this.start = start;
+            this.end = end;
+            this.position = start;
+        }
+
+        boolean isDone(){
+            return end >= 0 && position > end;
+        }
+    }
+
+    static class Checkpoint {
+        private String url;
+        private String source;
+        private String etag;
+        private String lastModified;
+        private long modified;
+        private long length;
+        private List<Range> ranges;
+
+        String validator(){
+            return etag != null ? etag : lastModified;
+        }
+
+        String source(){
+            return source != null ? source : url;
+        }
+
+        long committed(){
+            return ranges.stream().mapToLong(x -> x.position - x.start).sum();
+        }
+    }
+
+    private final URL url;
+    private final String key;
+    private final Path destination;
+    private final Path part;
+    private final Path meta;
+    private final NetworkToken token;
+    private final ProgressAggregator progressHandler;
+    private final List<BandwidthLimiter> limiters;
+
+    private RandomAccessFile file;
+    private FileChannel channel;
+    private Checkpoint checkpoint;
+    private MessageDigest digest;
+
+    private volatile boolean aborted;
+    private Throwable failure;
+    private long progress;
+    private long lastSave;
+
+    private Downloader(URL url, String key, Path destination, NetworkToken token, ProgressAggregator progressHandler){
+        this.url = url;
+        this.key = key;
+        this.destination = destination;
+        this.part = destination.parent().to(destination.getName() + PART);
+        this.meta = destination.parent().to(destination.getName() + CHECKPOINT);
+        this.token = token;
+        this.progressHandler = progressHandler;
+        this.limiters = Network.getBandwidth().limiters(token);
+    }
+
+    /**
+     * Download the url to the destination.
+     * @param url source url
+     * @param key url identifying the checkpoint, the source may be a mirror of it
+     * @param destination destination file
+     * @param token network token
+     * @param progressHandler progress aggregator, null for no progress
+     */
+    static void download(URL url, String key, Path destination, NetworkToken token, ProgressAggregator progressHandler) throws IOException, StopException, HttpException, NoConnectionException {
+        new Downloader(url, key, destination, token, progressHandler).run();
+    }
+
+    private void run() throws IOException, StopException, HttpException, NoConnectionException {
+        checkpoint = token.isResumable() ? load() : null;
+        if (checkpoint == null)
+            discard();
+
+        boolean completed = false;
+        try (RandomAccessFile f = new RandomAccessFile(part.toFile(), "rw")){
+            file = f;
+            channel = f.getChannel();
+
+            if (checkpoint != null){
+                progress = checkpoint.committed();
+                try{
+                    transfer(null);
+                }
+                catch (RangeIgnoredException ignored){
+                    reset();
+                }
+            }
+
+            if (checkpoint == null)
+                start();
+
+            completed = true;
+        }
+        catch (ChecksumException e){
+            // nothing worth resuming
+            checkpoint = null;
+            throw e;
+        }
+        finally {
+            if (!completed)
+                keep();
+        }
+
+        verify();
+        finish();
+    }
+
+    /**
+     * Start the download from the beginning.
+     */
+    private void start() throws IOException, StopException, HttpException, NoConnectionException {
+        if (token.getSegments() > 1 && plan()){
+            save();
+            try{
+                transfer(null);
+                return;
+            }
+            catch (RangeIgnoredException ignored){
+                reset();
+            }
+        }
+
+        TransportResponse response = open(null);
+        long length = response.getContentLength();
+        try{
+            expect(length);
+        }
+        catch (ChecksumException e){
+            response.close();
+            throw e;
+        }
+        checkpoint = create(response, length);
+        checkpoint.ranges.add(new Range(0, length > 0 ? length - 1 : -1));
+        save();
+
+        transfer(response);
+    }
+
+    /**
+     * Split the content into ranges if the server accepts them.
+     * @return false if the content should be downloaded as a single stream
+     */
+    private boolean plan() throws IOException, NoConnectionException {
+        try (TransportResponse probe = Network.send(null, TransportRequest.head(url.toString()))){
+            if (probe.getStatusCode() >= 400)
+                return false;
+
+            String ranges = probe.getHeader("Accept-Ranges");
+            if (ranges == null || !ranges.toLowerCase(Locale.US).contains("bytes"))
+                return false;
+
+            long length = probe.getContentLength();
+            expect(length);
+            int count = (int) Math.min(token.getSegments(), length / token.getMinSegmentSize());
+            if (count < 2)
+                return false;
+
+            checkpoint = create(probe, length);
+            long size = length / count;
+            for (int i = 0; i < count; i++){
+                long start = i * size;
+                checkpoint.ranges.add(new Range(start, i == count - 1 ? length - 1 : start + size - 1));
+            }
+            file.setLength(length);
+            return true;
+        }
+    }
+
+    /**
+     * Fail before the transfer if the announced length is not the expected size.
+     */
+    private void expect(long length) throws ChecksumException {
+        if (token.getSize() >= 0 && length >= 0 && length != token.getSize())
+            throw new ChecksumException(token.getSize() + " bytes", length + " bytes", url.toString());
+    }
+
+    /**
+     * Check the size and the digest of the complete part file.
+     */
+    private void verify() throws IOException {
+        long size = part.toFile().length();
+        if (token.getSize() >= 0 && size != token.getSize()){
+            discard();
+            throw new ChecksumException(token.getSize() + " bytes", size + " bytes", url.toString());
+        }
+
+        if (token.getDigest() == null)
+            return;
+
+        String actual = digest != null ? DigestIndex.toHex(digest.digest()) : DigestIndex.hash(part, token.getDigestAlgorithm());
+        if (!actual.equals(token.getDigest())){
+            discard();
+            throw new ChecksumException(token.getDigest(), actual, url.toString());
+        }
+    }
+
+    /**
+     * Create the digest of a single stream download, hashing the bytes already committed to the part file.
+     * @return the digest, null if the content is not written in order
+     */
+    private MessageDigest inline(Range range) throws IOException {
+        if (token.getDigest() == null || checkpoint.ranges.size() != 1 || range.start != 0)
+            return null;
+
+        MessageDigest d = DigestIndex.newDigest(token.getDigestAlgorithm());
+        ByteBuffer buffer = ByteBuffer.allocate(MIN_CHUNK_SIZE);
+        long position = 0;
+        while (position < range.position){
+            buffer.clear().limit((int) Math.min(buffer.capacity(), range.position - position));
+            int read = channel.read(buffer, position);
+            if (read == -1)
+                throw new IOException("Part file of " + url + " is shorter than its checkpoint");
+            buffer.flip();
+            d.update(buffer);
+            position += read;
+        }
+
+        return d;
+    }
+
+    private Checkpoint create(TransportResponse response, long length){
+        var c = new Checkpoint();
+        c.url = key;
+        c.source = url.toString();
+        c.etag = response.getHeader("ETag");
+        if (c.etag != null && c.etag.startsWith("W/"))
+            c.etag = null;
+        c.lastModified = response.getHeader("Last-Modified");
+        c.modified = response.getLastModified();
+        c.length = length;
+        c.ranges = new ArrayList<>();
+        return c;
+    }
+
+    private void reset() throws IOException {
+        checkpoint = null;
+        aborted = false;
+        failure = null;
+        digest = null;
+        progress = 0;
+        file.setLength(0);
+    }
+
+    /**
+     * Fetch all incomplete ranges of the checkpoint.
+     * @param first already opened response of the only range
+     */
+    private void transfer(TransportResponse first) throws IOException, StopException, HttpException, NoConnectionException {
+        List<Range> pending = new ArrayList<>();
+        for (Range r : checkpoint.ranges){
+            if (!r.isDone())
+                pending.add(r);
+        }
+
+        if (pending.size() == 1){
+            fetch(pending.get(0), first);
+            return;
+        }
+
+        List<Future<?>> futures = new ArrayList<>(pending.size());
+        for (Range r : pending){
+            futures.add(POOL.submit(() -> {
+                try{
+                    fetch(r, null);
+                }
+                catch (Throwable t){
+                    fail(t);
+                }
+            }));
+        }
+
+        for (Future<?> f : futures){
+            try{
+                f.get();
+            }
+            catch (ExecutionException e){
+                fail(e.getCause());
+            }
+            catch (InterruptedException e){
+                Thread.currentThread().interrupt();
+                fail(new StopException());
+            }
+        }
+
+        Throwable t;
+        synchronized (this){
+            t = failure;
+        }
+
+        if (t == null)
+            return;
+        if (t instanceof StopException)
+            throw (StopException) t;
+        if (t instanceof HttpException)
+            throw (HttpException) t;
+        if (t instanceof NoConnectionException)
+            throw (NoConnectionException) t;
+        if (t instanceof IOException)
+            throw (IOException) t;
+
+        throw new IOException(t);
+    }
+
+    private synchronized void fail(Throwable t){
+        aborted = true;
+        if (failure == null)
+            failure = t;
+    }
+
+    private void fetch(Range range, TransportResponse response) throws IOException, StopException, HttpException, NoConnectionException {
+        try{
+            if (response == null)
+                response = openRange(range);
+            digest = inline(range);
+
+            try (InputStream stream = response.getBody()){
+                if (Boolean.getBoolean(LEGACY_IO))
+                    copy(range, stream);
+                else
+                    transfer(range, Channels.newChannel(stream));
+            }
+
+            if (range.end < 0)
+                range.end = range.position - 1;
+            else if (range.position != range.end + 1)
+                throw new IOException("Range " + range.start + "-" + range.end + " of " + url + " ended at " + range.position);
+        }
+        finally {
+            if (response != null)
+                response.close();
+        }
+    }
+
+    /**
+     * Read the stream to the range in chunks through a pooled direct buffer.
+     * <br/>
+     * Chunks grow while they fill up quickly and shrink on slow connections
+     * so the progress is still reported often.
+     * <br/>
+     * The transports return the body as an input stream, so the channel of it still copies
+     * through a small heap array. The direct buffer saves the copy of the file write and
+     * writes a whole chunk at once. At most {@link #MAX_POOLED_BUFFERS} buffers are kept
+     * for the next downloads, the others are freed with the garbage.
+     */
+    private void transfer(Range range, ReadableByteChannel source) throws IOException, StopException {
+        ByteBuffer buffer = BUFFERS.poll();
+        if (buffer == null)
+            buffer = ByteBuffer.allocateDirect(MAX_CHUNK_SIZE);
+
+        try{
+            int limit = MIN_CHUNK_SIZE;
+            boolean eof = false;
+            while (!eof){
+                buffer.clear().limit(limit);
+                long begin = System.nanoTime();
+                while (buffer.hasRemaining()){
+                    if (token.stopRequested() || aborted)
+                        throw new StopException();
+
+                    int n = source.read(buffer);
+                    if (n == -1){
+                        eof = true;
+                        break;
+                    }
+                    BandwidthLimiter.acquire(limiters, n);
+                }
+
+                buffer.flip();
+                int read = buffer.remaining();
+                if (read == 0)
+                    continue;
+
+                if (digest != null)
+                    digest.update(buffer.duplicate());
+
+                long position = range.position;
+                while (buffer.hasRemaining())
+                    position += channel.write(buffer, position);
+                range.position = position;
+
+                report(read);
+
+                long elapsed = System.nanoTime() - begin;
+                if (elapsed < FAST_CHUNK && limit < MAX_CHUNK_SIZE)
+                    limit <<= 1;
+                else if (elapsed > SLOW_CHUNK && limit > MIN_CHUNK_SIZE)
+                    limit >>= 1;
+            }
+        }
+        finally {
+            BUFFERS.offer(buffer);
+        }
+    }
+
+    /**
+     * Read the stream to the range through a heap buffer.
+     */
+    private void copy(Range range, InputStream stream) throws IOException, StopException {
+        byte[] buffer = new byte[MIN_CHUNK_SIZE];
+        int read;
+        while ((read = stream.read(buffer)) != -1){
+            if (token.stopRequested() || aborted)
+                throw new StopException();
+
+            BandwidthLimiter.acquire(limiters, read);
+
+            if (digest != null)
+                digest.update(buffer, 0, read);
+
+            ByteBuffer b = ByteBuffer.wrap(buffer, 0, read);
+            long position = range.position;
+            while (b.hasRemaining())
+                position += channel.write(b, position);
+            range.position = position;
+
+            report(read);
+        }
+    }
+
+    private TransportResponse open(Range range) throws IOException, HttpException, NoConnectionException {
+        var request = TransportRequest.get(url.toString());
+        if (range != null){
+            request.withHeader(new RequestParameter("Range", "bytes=" + range.position + "-" + (range.end >= 0 ? range.end : "")));
+            // validators of a mirror may differ for the same content, the digest verifies it instead
+            String validator = checkpoint.validator();
+            if (validator != null && (url.toString().equals(checkpoint.source()) || token.getDigest() == null))
+                request.withHeader(new RequestParameter("If-Range", validator));
+
+            // parallel ranges should not share a single multiplexed connection
+            if (checkpoint.ranges.size() > 1)
+                request.preferHttp1();
+        }
+
+        TransportResponse response = Network.send(null, request);
+        if (response.getStatusCode() == 416)
+            return response;
+        if (!Network.check(response, url.toString()))
+            throw new FileNotFoundException(url.toString());
+
+        return response;
+    }
+
+    private TransportResponse openRange(Range range) throws IOException, HttpException, NoConnectionException {
+        TransportResponse response = open(range);
+        int code = response.getStatusCode();
+
+        if (code == HttpURLConnection.HTTP_PARTIAL && rangeStart(response) == range.position
+                && (checkpoint.length < 0 || rangeLength(response) < 0 || rangeLength(response) == checkpoint.length))
+            return response;
+
+        // whole content is fine when the only range starts from the beginning
+        if (code == HttpURLConnection.HTTP_OK && range.position == 0 && checkpoint.ranges.size() == 1)
+            return response;
+
+        response.close();
+        throw new RangeIgnoredException();
+    }
+
+    private static long rangeLength(TransportResponse response){
+        String range = response.getHeader("Content-Range");
+        int slash = range == null ? -1 : range.indexOf('/');
+        if (slash == -1)
+            return -1;
+
+        try{
+            return Long.parseLong(range.substring(slash + 1).trim());
+        }
+        catch (NumberFormatException e){
+            return -1;
+        }
+    }
+
+    private static long rangeStart(TransportResponse response){
+        String range = response.getHeader("Content-Range");
+        if (range == null)
+            return -1;
+
+        try{
+            return Long.parseLong(range.replace("bytes", "").trim().split("-")[0]);
+        }
+        catch (NumberFormatException e){
+            return -1;
+        }
+    }
+
+    private synchronized void report(int read) throws IOException {
+        progress += read;
+        if (progressHandler != null)
+            progressHandler.update(token, progress, checkpoint.length);
+
+        if (System.currentTimeMillis() - lastSave > CHECKPOINT_INTERVAL)
+            save();
+    }
+
+    private Checkpoint load(){
+        if (!meta.exists() || !part.exists())
+            return null;
+
+        Checkpoint c;
+        try{
+            c = GSON.fromJson(meta.read(), Checkpoint.class);
+        }
+        catch (JsonParseException e){
+            return null;
+        }
+
+        if (c == null || !key.equals(c.url) || c.validator() == null || c.ranges == null || c.ranges.isEmpty())
+            return null;
+        if (token.getSize() >= 0 && c.length >= 0 && c.length != token.getSize())
+            return null;
+
+        long size = part.getSize();
+        for (Range r : c.ranges){
+            if (r.position < r.start || r.position > size)
+                return null;
+        }
+
+        return c;
+    }
+
+    /**
+     * Write the checkpoint of a resumable download.
+     */
+    private synchronized void save() throws IOException {
+        if (checkpoint == null || !token.isResumable())
+            return;
+
+        lastSave = System.currentTimeMillis();
+        var temp = meta.parent().to(meta.getName() + ".tmp").toFile().toPath();
+        Files.writeString(temp, GSON.toJson(checkpoint));
+        move(temp, meta.toFile().toPath());
+    }
+
+    /**
+     * Keep the checkpoint of the failed download if it is resumable, otherwise delete the part file.
+     */
+    private void keep(){
+        try{
+            if (token.isResumable() && checkpoint != null)
+                save();
+            else
+                discard();
+        }
+        catch (IOException ignored){
+
+        }
+    }
+
+    private void discard() throws IOException {
+        Files.deleteIfExists(part.toFile().toPath());
+        Files.deleteIfExists(meta.toFile().toPath());
+    }
+
+    private void finish() throws IOException {
+        move(part.toFile().toPath(), destination.toFile().toPath());
+        Files.deleteIfExists(meta.toFile().toPath());
+
+        if (checkpoint.modified != 0)
+            destination.toFile().setLastModified(checkpoint.modified);
+    }
+
+    private static void move(java.nio.file.Path from, java.nio.file.Path to) throws IOException {
+        try{
+            Files.move(from, to, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+        catch (AtomicMoveNotSupportedException e){
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package com.laeben.core.network;
+
+import com.laeben.core.entity.RequestParameter;
+import com.laeben.core.entity.exception.HttpException;
+import com.laeben.core.entity.exception.NoConnectionException;
+import com.laeben.core.network.entity.RetryPolicy;
+import com.laeben.core.network.transport.Transport;
+import com.laeben.core.network.transport.TransportRequest;
+import com.laeben.core.network.transport.TransportResponse;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client of a <i>text/event-stream</i> keeping one long-lived connection.
+ * <br/>
+ * Events are parsed while they are received and passed to the listener on the reader thread.
+ * Lost connections are reopened with an exponential backoff, sending the last event id.
+ * Connections receiving nothing for the idle timeout are considered lost.
+ */
+public class EventSource implements AutoCloseable {
+    public static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofSeconds(90);
+    public static final Duration DEFAULT_BASE_DELAY = Duration.ofSeconds(1);
+    public static final Duration DEFAULT_MAX_DELAY = Duration.ofMinutes(1);
+
+    private static final ScheduledExecutorService WATCHDOG = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "laeben-event-source-watchdog");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * Listener of the events and the connection state.
+     */
+    public interface Listener {
+        /**
+         * @param type type of the event, <i>message</i> if not specified
+         * @param data data lines of the event joined with new lines
+         */
+        void onEvent(String type, String data);
+
+        /**
+         * Called when a connection is opened.
+         */
+        default void onOpen(){
+
+        }
+
+        /**
+         * Called when a connection is lost or could not be opened.
+         * <br/>
+         * The event source is already closed if it will not reconnect.
+         * @param e the cause, null if the stream ended
+         */
+        default void onError(Exception e){
+
+        }
+    }
+
+    private final String url;
+    private final List<RequestParameter> headers;
+    private final Listener listener;
+
+    private Transport transport;
+    private Duration idleTimeout = DEFAULT_IDLE_TIMEOUT;
+    private RetryPolicy backoff = RetryPolicy.create().withDelay(DEFAULT_BASE_DELAY, DEFAULT_MAX_DELAY);
+
+    private Thread thread;
+    private volatile TransportResponse response;
+    private volatile long lastRead;
+    private volatile boolean closed;
+
+    private String lastEventId;
+    private long reconnectDelay;
+    private int failures;
+
+    /**
+     * Create a new event source, {@link #start()} opens the connection.
+     * @param url url of the stream
+     * @param headers additional headers, null for none
+     * @param listener the listener
+     */
+    public EventSource(String url, List<RequestParameter> headers, Listener listener){
+        this.url = url;
+        this.headers = headers == null ? List.of() : List.copyOf(headers);
+        this.listener = listener;
+    }
+
+    /**
+     * @param transport the transport, null for the default one
+     * @return the event source
+     */
+    public EventSource withTransport(Transport transport){
+        this.transport = transport;
+        return this;
+    }
+
+    /**
+     * @param timeout max time without any received byte, including the keep-alive events
+     * @return the event source
+     */
+    public EventSource withIdleTimeout(Duration timeout){
+        this.idleTimeout = timeout;
+        return this;
+    }
+
+    /**
+     * @param base delay of the first reconnect, doubled for each failed reconnect
+     * @param max max delay between two reconnects
+     * @return the event source
+     */
+    public EventSource withBackoff(Duration base, Duration max){
+        this.backoff = RetryPolicy.create().withDelay(base, max);
+        return this;
+    }
+
+    /**
+     * Open the connection on a new daemon thread.
+     * @return the event source
+     */
+    public synchronized EventSource start(){
+        if (thread != null || closed)
+            return this;
+
+        thread = new Thread(this::run, "laeben-event-source");
+        thread.setDaemon(true);
+        thread.start();
+        return this;
+    }
+
+    /**
+     * Drop the current connection and open a new one.
+     */
+    public void reconnect(){
+        Network.close(response);
+    }
+
+    public boolean isClosed(){
+        return closed;
+    }
+
+    /**
+     * Close the connection and stop reconnecting.
+     */
+    @Override
+    public void close(){
+        closed = true;
+        Network.close(response);
+        synchronized (this){
+            if (thread != null)
+                thread.interrupt();
+        }
+    }
+
+    private void run(){
+        while (!closed){
+            String retryAfter = null;
+            try{
+                connect();
+            }
+            catch (HttpException e){
+                retryAfter = e.getRetryAfter();
+                if (!closed){
+                    // the request would be rejected again
+                    if (e.getStatusCode() < 500 && e.getStatusCode() != 408 && e.getStatusCode() != 429)
+                        closed = true;
+                    listener.onError(e);
+                }
+            }
+            catch (IOException | NoConnectionException e){
+                if (!closed)
+                    listener.onError(e);
+            }
+            catch (RuntimeException e){
+                if (!closed)
+                    listener.onError(e);
+            }
+            finally {
+                Network.close(response);
+                response = null;
+            }
+
+            if (closed)
+                break;
+
+            failures++;
+            long delay = backoff.delay(failures, retryAfter);
+            if (delay < 0)
+                delay = backoff.delay(failures, null);
+
+            try{
+                Network.sleep(Math.max(delay, reconnectDelay));
+            }
+            catch (IOException e){
+                break;
+            }
+        }
+    }
+
+    /**
+     * Open a connection and read its events until it ends.
+     */
+    private void connect() throws IOException, NoConnectionException, HttpException {
+        var request = TransportRequest.get(url)
+                .withHeaders(headers)
+                .withHeader(new RequestParameter("Accept", "text/event-stream"))
+                .withHeader(new RequestParameter("Cache-Control", "no-cache"));
+        if (lastEventId != null)
+            request.withHeader(new RequestParameter("Last-Event-ID", lastEventId));
+
+        TransportResponse r = Network.send(transport, request);
+        response = r;
+        if (closed)
+            return;
+
+        if (!r.isSuccessful())
+            throw new HttpException(r.getStatusCode(), Network.inputStreamToString(r.getBody()), url, r.getHeader("Retry-After"));
+
+        String type = r.getHeader("Content-Type");
+        if (type == null || !type.toLowerCase(Locale.ROOT).startsWith("text/event-stream"))
+            throw new IOException("Not an event stream: " + type);
+
+        lastRead = System.nanoTime();
+        var watchdog = idleTimeout == null ? null : WATCHDOG.scheduleWithFixedDelay(() -> {
+            if (System.nanoTime() - lastRead > idleTimeout.toNanos())
+                Network.close(r);
+        }, idleTimeout.toMillis(), Math.max(1, idleTimeout.toMillis() / 4), TimeUnit.MILLISECONDS);
+
+        failures = 0;
+        listener.onOpen();
+        try (var reader = new BufferedReader(new InputStreamReader(r.getBody(), StandardCharsets.UTF_8))){
+            read(reader);
+        }
+        finally {
+            if (watchdog != null)
+                watchdog.cancel(false);
+        }
+
+        if (!closed)
+            listener.onError(null);
+    }
+
+    private void read(BufferedReader reader) throws IOException {
+        String type = null;
+        var data = new StringBuilder();
+        boolean hasData = false;
+
+        String line;
+        while (!closed && (line = reader.readLine()) != null){
+            lastRead = System.nanoTime();
+
+            if (line.isEmpty()){
+                if (hasData)
+                    listener.onEvent(type == null ? "message" : type, data.substring(0, data.length() - 1));
+                type = null;
+                data.setLength(0);
+                hasData = false;
+                continue;
+            }
+
+            if (line.startsWith(":"))
+                continue;
+
+            int i = line.indexOf(':');
+            String field = i == -1 ? line : line.substring(0, i);
+            String value = i == -1 ? "" : line.substring(line.startsWith(" ", i + 1) ? i + 2 : i + 1);
+            switch (field){
+                case "event":
+                    type = value;
+                    break;
+                case "data":
+                    data.append(value).append('\n');
+                    hasData = true;
+                    break;
+                case "id":
+                    if (value.indexOf('\0') == -1)
+                        lastEventId = value;
+                    break;
+                case "retry":
+                    try{
+                        reconnectDelay = Long.parseLong(value);
+                    }
+                    catch (NumberFormatException ignored){
+
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package com.laeben.core.network;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.laeben.core.LaebenApp;
+import com.laeben.core.entity.Path;
+import com.laeben.core.entity.RequestParameter;
+import com.laeben.core.entity.exception.HttpException;
+import com.laeben.core.entity.exception.NoConnectionException;
+import com.laeben.core.network.transport.Transport;
+import com.laeben.core.network.transport.TransportRequest;
+import com.laeben.core.network.transport.TransportResponse;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Disk cache of GET responses revalidated with <i>If-None-Match</i> and <i>If-Modified-Since</i>.
+ * <br/>
+ * Responses without a validator are not cached. Cached responses are served without a request
+ * while {@link Network#isOffline()} or when the server can not be reached.
+ * Least recently used entries are evicted when the cache grows over its max size.
+ */
+public class HttpCache {
+    private static final String BODY = ".body";
+    private static final String META = ".json";
+    private static final Gson GSON = new Gson();
+
+    private static class Entry {
+        private String url;
+        private String etag;
+        private String lastModified;
+        private long size;
+
+        private transient String key;
+    }
+
+    private final java.nio.file.Path root;
+    private final long maxSize;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private boolean loaded;
+    private long size;
+
+    /**
+     * Create a new cache.
+     * @param root cache directory
+     * @param maxSize max total size of the cached bodies in bytes
+     */
+    public HttpCache(Path root, long maxSize){
+        this.root = root.toFile().toPath();
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Get the content of the request from the cache or the network.
+     * @param transport the transport, null for the default one
+     * @param request GET request
+     * @return the content, null if not found
+     */
+    public InputStream get(Transport transport, TransportRequest request) throws NoConnectionException, HttpException {
+        return get(transport, request, true);
+    }
+
+    /**
+     * @param useCache false to send the request without the cache after a lost body
+     */
+    private InputStream get(Transport transport, TransportRequest request, boolean useCache) throws NoConnectionException, HttpException {
+        String key = key(request);
+        Entry entry = useCache ? find(key) : null;
+
+        if (Network.isOffline()){
+            InputStream cached = entry != null ? open(entry) : null;
+            if (cached != null)
+                return cached;
+            throw new NoConnectionException();
+        }
+
+        var conditional = request.copy();
+        if (entry != null){
+            if (entry.etag != null)
+                conditional.withHeader(new RequestParameter("If-None-Match", entry.etag));
+            if (entry.lastModified != null)
+                conditional.withHeader(new RequestParameter("If-Modified-Since", entry.lastModified));
+        }
+
+        TransportResponse response = null;
+        try{
+            response = Network.send(transport, conditional);
+
+            if (entry != null && response.getStatusCode() == HttpURLConnection.HTTP_NOT_MODIFIED){
+                response.close();
+                InputStream cached = open(entry);
+
+                // body is lost, it is requested once more without the cache
+                return cached != null ? cached : get(transport, request, false);
+            }
+
+            if (!Network.check(response, request.getUrl())){
+                if (entry != null)
+                    remove(entry);
+                return null;
+            }
+
+            String cacheControl = response.getHeader("Cache-Control");
+            boolean store = useCache && response.getStatusCode() == HttpURLConnection.HTTP_OK
+                    && (response.getHeader("ETag") != null || response.getHeader("Last-Modified") != null)
+                    && (cacheControl == null || !cacheControl.toLowerCase(Locale.US).contains("no-store"));
+            if (!store)
+                return Network.body(response);
+
+            InputStream stored = open(store(key, request.getUrl(), response));
+            return stored != null ? stored : get(transport, request, false);
+        }
+        catch (NoConnectionException e){
+            InputStream cached = entry != null ? open(entry) : null;
+            if (cached != null)
+                return cached;
+            throw e;
+        }
+        catch (IOException e){
+            Network.close(response);
+            InputStream cached = entry != null ? open(entry) : null;
+            if (cached != null)
+                return cached;
+
+            LaebenApp.handleException(e);
+            return null;
+        }
+    }
+
+    /**
+     * Remove all entries.
+     */
+    public synchronized void clear(){
+        load();
+        new ArrayList<>(entries.values()).forEach(this::remove);
+    }
+
+    /**
+     * @return total size of the cached bodies in bytes
+     */
+    public synchronized long getSize(){
+        load();
+        return size;
+    }
+
+    /**
+     * Open the body of the entry.
+     * @return the body, null if the body is lost
+     */
+    private InputStream open(Entry entry){
+        File body = root.resolve(entry.key + BODY).toFile();
+        try{
+            // last modified date of the body is the access order between the sessions
+            body.setLastModified(System.currentTimeMillis());
+            return Files.newInputStream(body.toPath());
+        }
+        catch (IOException e){
+            remove(entry);
+            return null;
+        }
+    }
+
+    private Entry store(String key, String url, TransportResponse response) throws IOException {
+        Files.createDirectories(root);
+
+        var temp = Files.createTempFile(root, key, ".tmp");
+        try (InputStream stream = Network.body(response)){
+            Files.copy(stream, temp, StandardCopyOption.REPLACE_EXISTING);
+            move(temp, root.resolve(key + BODY));
+        }
+        finally {
+            Files.deleteIfExists(temp);
+        }
+
+        var entry = new Entry();
+        entry.key = key;
+        entry.url = url;
+        entry.etag = response.getHeader("ETag");
+        entry.lastModified = response.getHeader("Last-Modified");
+        entry.size = Files.size(root.resolve(key + BODY));
+        Files.writeString(root.resolve(key + META), GSON.toJson(entry));
+
+        synchronized (this){
+            Entry old = entries.put(key, entry);
+            if (old != null)
+                size -= old.size;
+            size += entry.size;
+
+            var it = entries.values().iterator();
+            while (size > maxSize && it.hasNext()){
+                Entry e = it.next();
+                if (e == entry)
+                    continue;
+                it.remove();
+                delete(e);
+            }
+        }
+
+        return entry;
+    }
+
+    private synchronized Entry find(String key){
+        load();
+        return entries.get(key);
+    }
+
+    private synchronized void remove(Entry entry){
+        if (entries.remove(entry.key) != null)
+            delete(entry);
+    }
+
+    private void delete(Entry entry){
+        size -= entry.size;
+        try{
+            Files.deleteIfExists(root.resolve(entry.key + BODY));
+            Files.deleteIfExists(root.resolve(entry.key + META));
+        }
+        catch (IOException e){
+            LaebenApp.handleException(e);
+        }
+    }
+
+    /**
+     * Load the entries of the previous sessions in the access order.
+     */
+    private void load(){
+        if (loaded)
+            return;
+        loaded = true;
+
+        File[] files = root.toFile().listFiles((d, n) -> n.endsWith(META));
+        if (files == null)
+            return;
+
+        List<Entry> found = new ArrayList<>();
+        Map<Entry, Long> access = new HashMap<>();
+        for (File f : files){
+            String key = f.getName().substring(0, f.getName().length() - META.length());
+            File body = root.resolve(key + BODY).toFile();
+            Entry e;
+            try{
+                e = GSON.fromJson(Files.readString(f.toPath()), Entry.class);
+            }
+            catch (IOException | JsonParseException ex){
+                e = null;
+            }
+
+            if (e == null || !body.exists()){
+                f.delete();
+                body.delete();
+                continue;
+            }
+
+            e.key = key;
+            found.add(e);
+            access.put(e, body.lastModified());
+        }
+
+        found.sort(Comparator.comparingLong(access::get));
+        for (Entry e : found){
+            entries.put(e.key, e);
+            size += e.size;
+        }
+    }
+
+    private static String key(TransportRequest request){
+        var key = new StringBuilder(request.getMethod()).append(' ').append(request.getUrl());
+        for (RequestParameter h : request.getHeaders())
+            key.append('\n').append(h.key()).append(':').append(h.value());
+
+        try{
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(key.toString().getBytes(StandardCharsets.UTF_8));
+            var hex = new StringBuilder();
+            for (int i = 0; i < 16; i++)
+                hex.append(String.format("%02x", hash[i]));
+            return hex.toString();
+        }
+        catch (NoSuchAlgorithmException e){
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void move(java.nio.file.Path from, java.nio.file.Path to) throws IOException {
+        try{
+            Files.move(from, to, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+        catch (AtomicMoveNotSupportedException e){
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
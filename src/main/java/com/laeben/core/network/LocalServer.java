@@ -0,0 +1,427 @@
+package com.laeben.core.network;
+
+import com.laeben.core.LaebenApp;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Local http endpoint on the loopback address, for example the callbacks of the browser logins.
+ * <br/>
+ * Connections are accepted by a selector and every request is handled on a pooled daemon thread,
+ * so preflight, favicon and concurrent requests do not block each other. Requests are routed by
+ * their paths and can be awaited with {@link #await(String, Duration)}.
+ * <br/>
+ * Cross origin requests of the web pages are not allowed unless their origins are allowed
+ * with {@link #withAllowedOrigins(String...)}.
+ */
+public class LocalServer implements AutoCloseable {
+    public static final int MAX_BODY_SIZE = 1 << 20;
+
+    private static final String METHODS = "GET, POST, PUT, PATCH, DELETE, OPTIONS";
+
+    /**
+     * Received request.
+     */
+    public static class Request {
+        private final String method;
+        private final URI uri;
+        private final String protocol;
+        private final Map<String, List<String>> headers;
+        private final String body;
+
+        private Request(String method, URI uri, String protocol, Map<String, List<String>> headers, String body){
+            this.method = method;
+            this.uri = uri;
+            this.protocol = protocol;
+            this.headers = headers;
+            this.body = body;
+        }
+
+        public String getMethod(){
+            return method;
+        }
+
+        public String getPath(){
+            return uri.getPath();
+        }
+
+        /**
+         * @return raw query of the request, null if none
+         */
+        public String getQuery(){
+            return uri.getRawQuery();
+        }
+
+        /**
+         * Get the first value of the query parameter.
+         * @param name name of the parameter
+         * @return the decoded value, null if not found
+         */
+        public String getParameter(String name){
+            String query = uri.getRawQuery();
+            if (query == null)
+                return null;
+
+            for (String pair : query.split("&")){
+                int i = pair.indexOf('=');
+                String key = i == -1 ? pair : pair.substring(0, i);
+                if (decode(key).equals(name))
+                    return i == -1 ? "" : decode(pair.substring(i + 1));
+            }
+
+            return null;
+        }
+
+        /**
+         * @param name name of the header, case insensitive
+         * @return the first value of the header, null if not found
+         */
+        public String getHeader(String name){
+            for (var e : headers.entrySet()){
+                if (e.getKey().equalsIgnoreCase(name) && !e.getValue().isEmpty())
+                    return e.getValue().get(0);
+            }
+
+            return null;
+        }
+
+        public Map<String, List<String>> getHeaders(){
+            return headers;
+        }
+
+        /**
+         * @return UTF-8 body of the request, empty if none
+         */
+        public String getBody(){
+            return body;
+        }
+
+        /**
+         * @return request line and the headers in the http format
+         */
+        @Override
+        public String toString(){
+            var b = new StringBuilder();
+            b.append(method).append(' ').append(uri.getRawPath());
+            if (uri.getRawQuery() != null)
+                b.append('?').append(uri.getRawQuery());
+            b.append(' ').append(protocol).append('\n');
+            for (var e : headers.entrySet()){
+                for (String v : e.getValue())
+                    b.append(e.getKey()).append(": ").append(v).append('\n');
+            }
+
+            return b.append('\n').toString();
+        }
+
+        private static String decode(String s){
+            return URLDecoder.decode(s, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Response of a route.
+     */
+    public static class Response {
+        private final int status;
+        private final String contentType;
+        private final byte[] body;
+        private final Map<String, String> headers = new LinkedHashMap<>();
+
+        private Response(int status, String contentType, byte[] body){
+            this.status = status;
+            this.contentType = contentType;
+            this.body = body;
+        }
+
+        /**
+         * @param status http status
+         * @param contentType type of the body, null if no body
+         * @param body the body, null if none
+         * @return the response
+         */
+        public static Response of(int status, String contentType, byte[] body){
+            return new Response(status, contentType, body == null ? new byte[0] : body);
+        }
+
+        /**
+         * @param html html body
+         * @return 200 response with the html
+         */
+        public static Response html(String html){
+            return of(200, "text/html; charset=utf-8", html == null ? null : html.getBytes(StandardCharsets.UTF_8));
+        }
+
+        /**
+         * @param text text body
+         * @return 200 response with the text
+         */
+        public static Response text(String text){
+            return of(200, "text/plain; charset=utf-8", text == null ? null : text.getBytes(StandardCharsets.UTF_8));
+        }
+
+        /**
+         * @param status http status
+         * @return response without a body
+         */
+        public static Response status(int status){
+            return of(status, null, null);
+        }
+
+        public Response withHeader(String name, String value){
+            headers.put(name, value);
+            return this;
+        }
+
+        public int getStatus(){
+            return status;
+        }
+    }
+
+    private static class Waiter {
+        private final Predicate<Request> filter;
+        private final CompletableFuture<Request> future = new CompletableFuture<>();
+
+        private Waiter(Predicate<Request> filter){
+            this.filter = filter;
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "laeben-local-server");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final Map<String, Function<Request, Response>> routes = new ConcurrentHashMap<>();
+    private final List<Waiter> waiters = new CopyOnWriteArrayList<>();
+    private final Set<String> allowedOrigins = new CopyOnWriteArraySet<>();
+    private volatile Function<Request, Response> fallback = r -> Response.status(404);
+    private volatile boolean closed;
+
+    /**
+     * Create and start a server on the loopback address.
+     * @param port server port, 0 for any free port
+     */
+    public LocalServer(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * Route the requests of the path to the handler.
+     * <br/>
+     * Paths ending with a slash also match their sub paths, the longest matching route is used.
+     * @param path path of the route
+     * @param handler handler of the requests
+     * @return the server
+     */
+    public LocalServer route(String path, Function<Request, Response> handler){
+        routes.put(path, handler);
+        return this;
+    }
+
+    /**
+     * @param handler handler of the requests matching no route, 404 by default
+     * @return the server
+     */
+    public LocalServer withFallback(Function<Request, Response> handler){
+        this.fallback = handler;
+        return this;
+    }
+
+    /**
+     * Allow the cross origin requests of the origins, none by default.
+     * <br/>
+     * Responses to the allowed origins echo them in <i>Access-Control-Allow-Origin</i>, and the preflight
+     * requests of the other origins are refused.
+     * @param origins origins like <i>https://example.com</i>
+     * @return the server
+     */
+    public LocalServer withAllowedOrigins(String... origins){
+        allowedOrigins.addAll(Arrays.asList(origins));
+        return this;
+    }
+
+    /**
+     * Await the first request to the path after its response is sent.
+     * <br/>
+     * Preflight requests are not matched.
+     * @param path path of the request
+     * @param timeout max waiting time, null for no timeout
+     * @return future of the request, completed exceptionally with {@link TimeoutException} on timeout
+     */
+    public CompletableFuture<Request> await(String path, Duration timeout){
+        return await(r -> !r.getMethod().equals("OPTIONS") && r.getPath().equals(path), timeout);
+    }
+
+    /**
+     * Await the first matching request after its response is sent.
+     * @param filter filter of the requests
+     * @param timeout max waiting time, null for no timeout
+     * @return future of the request, completed exceptionally with {@link TimeoutException} on timeout
+     */
+    public CompletableFuture<Request> await(Predicate<Request> filter, Duration timeout){
+        var w = new Waiter(filter);
+        if (closed){
+            w.future.completeExceptionally(new IOException("Server is closed."));
+            return w.future;
+        }
+
+        waiters.add(w);
+        w.future.whenComplete((r, e) -> waiters.remove(w));
+        if (timeout != null)
+            w.future.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+
+        return w.future;
+    }
+
+    public int getPort(){
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * @return base url of the server without a trailing slash
+     */
+    public String getUrl(){
+        return "http://" + InetAddress.getLoopbackAddress().getHostAddress() + ":" + getPort();
+    }
+
+    /**
+     * Stop the server, the waiting requests fail.
+     */
+    @Override
+    public void close(){
+        closed = true;
+        server.stop(0);
+        executor.shutdownNow();
+        for (Waiter w : waiters)
+            w.future.completeExceptionally(new IOException("Server is closed."));
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        Request request = null;
+        try{
+            byte[] body;
+            try (InputStream in = exchange.getRequestBody()){
+                body = in.readNBytes(MAX_BODY_SIZE + 1);
+            }
+
+            Response response;
+            if (body.length > MAX_BODY_SIZE)
+                response = Response.status(413);
+            else{
+                var headers = new LinkedHashMap<String, List<String>>();
+                exchange.getRequestHeaders().forEach((k, v) -> headers.put(k, List.copyOf(v)));
+                request = new Request(exchange.getRequestMethod(), exchange.getRequestURI(), exchange.getProtocol(),
+                        Collections.unmodifiableMap(headers), new String(body, StandardCharsets.UTF_8));
+                response = respond(request);
+                allowOrigin(request, response);
+            }
+
+            send(exchange, response);
+        }
+        finally {
+            exchange.close();
+            if (request != null)
+                notify(request);
+        }
+    }
+
+    private Response respond(Request request){
+        if (request.getMethod().equals("OPTIONS"))
+            return preflight(request);
+
+        var handler = routes.get(request.getPath());
+        if (handler == null){
+            String match = null;
+            for (String path : routes.keySet()){
+                if (path.endsWith("/") && request.getPath().startsWith(path) && (match == null || path.length() > match.length()))
+                    match = path;
+            }
+            handler = match == null ? fallback : routes.get(match);
+        }
+
+        try{
+            var response = handler.apply(request);
+            return response == null ? Response.status(204) : response;
+        }
+        catch (Exception e){
+            LaebenApp.handleException(e);
+            return Response.status(500);
+        }
+    }
+
+    private Response preflight(Request request){
+        String origin = request.getHeader("Origin");
+        if (origin == null)
+            return Response.status(204).withHeader("Allow", METHODS);
+        if (!allowedOrigins.contains(origin))
+            return Response.status(403);
+
+        var response = Response.status(204)
+                .withHeader("Access-Control-Allow-Methods", METHODS)
+                .withHeader("Access-Control-Max-Age", "600");
+        String headers = request.getHeader("Access-Control-Request-Headers");
+        if (headers != null)
+            response.withHeader("Access-Control-Allow-Headers", headers);
+
+        return response;
+    }
+
+    private void allowOrigin(Request request, Response response){
+        String origin = request.getHeader("Origin");
+        if (origin == null || !allowedOrigins.contains(origin))
+            return;
+
+        response.withHeader("Access-Control-Allow-Origin", origin)
+                .withHeader("Vary", "Origin");
+    }
+
+    private static void send(HttpExchange exchange, Response response) throws IOException {
+        Headers headers = exchange.getResponseHeaders();
+        response.headers.forEach(headers::set);
+        if (response.contentType != null)
+            headers.set("Content-Type", response.contentType);
+
+        // zero means chunked for the server, -1 means no body
+        boolean empty = response.body.length == 0 || exchange.getRequestMethod().equals("HEAD")
+                || response.status == 204 || response.status == 304;
+        exchange.sendResponseHeaders(response.status, empty ? -1 : response.body.length);
+        if (!empty){
+            try (OutputStream out = exchange.getResponseBody()){
+                out.write(response.body);
+            }
+        }
+    }
+
+    private void notify(Request request){
+        for (Waiter w : waiters){
+            try{
+                if (w.filter.test(request))
+                    w.future.complete(request);
+            }
+            catch (Exception e){
+                w.future.completeExceptionally(e);
+            }
+        }
+    }
+}
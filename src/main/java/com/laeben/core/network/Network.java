@@ -1,13 +1,21 @@
 package com.laeben.core.network;
 
+import com.google.gson.stream.JsonReader;
 import com.laeben.core.LaebenApp;
+import com.laeben.core.entity.exception.ChecksumException;
 import com.laeben.core.entity.exception.HttpException;
 import com.laeben.core.entity.exception.NoConnectionException;
 import com.laeben.core.entity.Path;
 import com.laeben.core.entity.RequestParameter;
 import com.laeben.core.entity.exception.StopException;
+import com.laeben.core.jfr.DownloadEvent;
+import com.laeben.core.jfr.HttpRequestEvent;
 import com.laeben.core.network.entity.NetworkToken;
+import com.laeben.core.network.entity.RetryPolicy;
+import com.laeben.core.network.transport.*;
+import com.laeben.core.util.BandwidthLimiter;
 import com.laeben.core.util.EventHandler;
+import com.laeben.core.util.IOUtil;
 import com.laeben.core.util.events.ValueEvent;
 import com.laeben.core.util.events.ProgressEvent;
 
@@ -19,16 +27,19 @@ import java.io.*;
 import java.net.*;
 import java.nio.charset.StandardCharsets;
 import java.security.cert.X509Certificate;
-import java.util.Collections;
-import java.util.HashSet;
+import java.time.Duration;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Network utils for communication.
  */
 public class Network {
     public static final String DOWNLOAD = "download";
+    public static final String DOWNLOAD_TOTAL = "downloadTotal";
 
     private static final EventHandler<ProgressEvent> handler = new EventHandler<>();
 
@@ -36,38 +47,132 @@ public class Network {
         return handler;
     }
 
-    private static final Set<NetworkToken> currentDownloads = new HashSet<>();
+    private static final EventHandler<ProgressEvent> totalHandler = new EventHandler<>();
+
+    /**
+     * Get the handler of the progress of all downloads together, fired with the {@link #DOWNLOAD_TOTAL} key.
+     * @return the handler
+     */
+    public static EventHandler<ProgressEvent> getTotalHandler(){
+        return totalHandler;
+    }
+
+    private static final Bandwidth bandwidth = new Bandwidth();
+    private static final ProgressAggregator progress = new ProgressAggregator(handler, totalHandler);
+    private static volatile DigestIndex digestIndex = new DigestIndex(null);
+    private static volatile ContentStore contentStore;
+    private static final List<NetworkListener> listeners = new CopyOnWriteArrayList<>();
+    private static final DownloadScheduler scheduler = new DownloadScheduler(DownloadScheduler.DEFAULT_MAX_CONCURRENT, DownloadScheduler.DEFAULT_MAX_PER_HOST);
+
+    /**
+     * @return bandwidth limits of the transfers
+     */
+    public static Bandwidth getBandwidth(){
+        return bandwidth;
+    }
+
+    /**
+     * Get the aggregator of the download progress to set its rate.
+     * @return the aggregator firing the events of {@link #getHandler()} and {@link #getTotalHandler()}
+     */
+    public static ProgressAggregator getProgress(){
+        return progress;
+    }
+
+    /**
+     * Set the index of the digests of the downloaded files.
+     * <br/>
+     * Indexed files are not hashed again while they are unchanged. The default index is kept in memory only.
+     * @param index the index
+     */
+    public static void setDigestIndex(DigestIndex index){
+        digestIndex = index == null ? new DigestIndex(null) : index;
+    }
+
+    public static DigestIndex getDigestIndex(){
+        return digestIndex;
+    }
+
+    /**
+     * Set the store of the downloaded files.
+     * <br/>
+     * Downloads with a digest are materialized from the store without a request if it has their content,
+     * and added to it when complete.
+     * @param store the store, null to disable
+     */
+    public static void setContentStore(ContentStore store){
+        contentStore = store;
+    }
+
+    public static ContentStore getContentStore(){
+        return contentStore;
+    }
+
+    /**
+     * Add a listener of the timings of the requests and downloads.
+     * <br/>
+     * Requests are not timed while there is no listener and the flight recorder does not record them.
+     * @param listener the listener, for example a {@link NetworkMetrics}
+     */
+    public static void addListener(NetworkListener listener){
+        listeners.add(listener);
+    }
+
+    public static void removeListener(NetworkListener listener){
+        listeners.remove(listener);
+    }
+
+    static void fire(NetworkTiming timing){
+        for (NetworkListener l : listeners){
+            try{
+                l.onFinish(timing);
+            }
+            catch (RuntimeException e){
+                LaebenApp.handleException(e);
+            }
+        }
+    }
+
+    /**
+     * @return the scheduler queueing the downloads and tracking the running ones
+     */
+    public static DownloadScheduler getScheduler(){
+        return scheduler;
+    }
 
     public static boolean hasDownloads(){
-        return !currentDownloads.isEmpty();
+        return scheduler.hasDownloads();
     }
     public static Set<NetworkToken> getCurrentDownloads(){
-        return Collections.unmodifiableSet(currentDownloads);
+        return scheduler.getCurrentDownloads();
     }
 
     /**
      * Convert input stream to string.
      * @param s the input stream
-     * @return the content
+     * @return the content, <i>{}</i> if the stream is null or can not be read
      */
     public static String inputStreamToString(InputStream s){
-        String read = "{}";
-        try (BufferedInputStream stream = new BufferedInputStream(s);
-             ByteArrayOutputStream buffer = new ByteArrayOutputStream()
-        ){
-            int r;
-            while ((r = stream.read()) != -1){
-                buffer.write(r);
-            }
+        return inputStreamToString(s, -1);
+    }
 
+    /**
+     * Convert input stream to string.
+     * @param s the input stream
+     * @param length expected length in bytes to size the buffer, negative if unknown
+     * @return the content, <i>{}</i> if the stream is null or can not be read
+     */
+    public static String inputStreamToString(InputStream s, long length){
+        if (s == null)
+            return "{}";
 
-            read = buffer.toString(StandardCharsets.UTF_8);
+        try{
+            return IOUtil.readString(s, length);
         }
         catch (IOException e){
             LaebenApp.getHandler().execute(new ValueEvent(LaebenApp.EXCEPTION, e));
+            return "{}";
         }
-
-        return read;
     }
 
     /**
@@ -86,6 +191,45 @@ public class Network {
         return inputStreamToString(urlToStream(url, headers));
     }
 
+    /**
+     * Get the content of the request as a string.
+     * @param transport the transport, null for the default one
+     * @param request the request
+     * @return the content
+     */
+    public static String urlToString(Transport transport, TransportRequest request) throws NoConnectionException, HttpException {
+        TransportResponse response = open(transport, request);
+        if (response == null)
+            return inputStreamToString(null);
+
+        return inputStreamToString(body(response), response.getContentLength());
+    }
+
+    /**
+     * Get the content of the request as a UTF-8 reader to parse it while it is received.
+     * @param transport the transport, null for the default one
+     * @param request the request
+     * @return the reader, null if not found
+     */
+    public static Reader urlToReader(Transport transport, TransportRequest request) throws NoConnectionException, HttpException {
+        InputStream stream = urlToStream(transport, request);
+        if (stream == null)
+            return null;
+
+        return new InputStreamReader(stream, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Get the content of the request as a JSON reader to parse it while it is received.
+     * @param transport the transport, null for the default one
+     * @param request the request
+     * @return the reader, null if not found
+     */
+    public static JsonReader urlToJsonReader(Transport transport, TransportRequest request) throws NoConnectionException, HttpException {
+        Reader reader = urlToReader(transport, request);
+        return reader == null ? null : new JsonReader(reader);
+    }
+
     /**
      * Get the input stream content of the url with headers.
      * @return the content
@@ -94,37 +238,155 @@ public class Network {
         if (url == null)
             return null;
 
-        URL u;
-        try {
-            u = new URL(url);
-        } catch (MalformedURLException e) {
+        return urlToStream(null, TransportRequest.get(url).withHeaders(headers).withCompression(true));
+    }
+
+    /**
+     * Get the input stream content of the request.
+     * @param transport the transport, null for the default one
+     * @param request the request
+     * @return the content, null if not found
+     */
+    public static InputStream urlToStream(Transport transport, TransportRequest request) throws NoConnectionException, HttpException {
+        TransportResponse response = open(transport, request);
+        return response == null ? null : body(response);
+    }
+
+    /**
+     * Send the request and check the response.
+     * @return the response, null if not found or failed
+     */
+    private static TransportResponse open(Transport transport, TransportRequest request) throws NoConnectionException, HttpException {
+        TransportResponse response = null;
+        try{
+            response = send(transport, request);
+            if (!check(response, request.getUrl()))
+                return null;
+
+            return response;
+        }
+        catch (IOException e){
+            close(response);
             LaebenApp.handleException(e);
             return null;
         }
+    }
 
-        if (offline)
-            throw new NoConnectionException();
+    static InputStream body(TransportResponse response){
+        return BandwidthLimiter.limit(response.getBody(), List.of(bandwidth.getDownloadLimiter()));
+    }
 
+    /**
+     * Send the request.
+     * <br/>
+     * Failed attempts are repeated by the retry policy of the request.
+     * @param transport the transport, null for the default one
+     * @param request the request
+     * @return the response, should be closed after use
+     */
+    public static TransportResponse send(Transport transport, TransportRequest request) throws NoConnectionException, IOException {
+        boolean decode = request.isCompressionAccepted() && request.getHeader("Accept-Encoding") == null;
+        if (decode)
+            request = request.copy().withHeader(new RequestParameter("Accept-Encoding", Compression.ACCEPT_ENCODING));
 
-        HttpURLConnection conn = null;
+        RequestMeter meter = listeners.isEmpty() && !HttpRequestEvent.enabled() ? null : new RequestMeter(request);
         try{
-            conn = (HttpURLConnection) u.openConnection();
-            if (headers != null){
-                for (RequestParameter h : headers){
-                    conn.addRequestProperty(h.key(), h.value().toString());
+            // a streamed body may be sent only once
+            RetryPolicy policy = request.isRepeatable() ? request.getRetryPolicy() : null;
+            for (int attempt = 1; ; attempt++){
+                if (offline)
+                    throw new NoConnectionException();
+
+                if (meter != null)
+                    meter.attempt();
+
+                TransportResponse response;
+                try{
+                    response = (transport != null ? transport : Network.transport).send(request);
+                }
+                catch (UnknownHostException | NoRouteToHostException ignored){
+                    throw new NoConnectionException();
+                }
+                catch (IOException e){
+                    if (policy == null || !policy.canRetry(attempt) || !policy.isRetryable(request.getMethod()) || isInterrupt(e))
+                        throw e;
+
+                    sleep(policy.delay(attempt, null));
+                    continue;
                 }
+
+                // the received bytes are counted before decoding
+                if (meter != null)
+                    response = meter.response(response);
+                if (decode)
+                    response = Compression.decode(response);
+
+                if (policy == null || !policy.canRetry(attempt) || !policy.isRetryable(request.getMethod(), response.getStatusCode()))
+                    return response;
+
+                long delay = policy.delay(attempt, response.getHeader("Retry-After"));
+                if (delay < 0)
+                    return response;
+
+                if (meter != null)
+                    meter.discard();
+                close(response);
+                sleep(delay);
             }
-            return conn.getInputStream();
         }
-        catch (FileNotFoundException f){
-            return null;
-        }
-        catch (UnknownHostException | NoRouteToHostException ignored){
+        catch (UnknownHostException e){
+            if (meter != null)
+                meter.fail(e);
             throw new NoConnectionException();
         }
-        catch (IOException e){
-            handleNetIO(e, conn, url);
-            return null;
+        catch (NoConnectionException | IOException | RuntimeException e){
+            if (meter != null)
+                meter.fail(e);
+            throw e;
+        }
+    }
+
+    private static boolean isInterrupt(IOException e){
+        return e instanceof InterruptedIOException && !(e instanceof SocketTimeoutException);
+    }
+
+    static void sleep(long millis) throws InterruptedIOException {
+        try{
+            Thread.sleep(millis);
+        }
+        catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+    }
+
+    /**
+     * Check the status of the response.
+     * @param response the response
+     * @param url the requested url
+     * @return false if the content is not found
+     */
+    static boolean check(TransportResponse response, String url) throws HttpException, IOException {
+        int code = response.getStatusCode();
+        if (code == HttpURLConnection.HTTP_NOT_FOUND || code == HttpURLConnection.HTTP_GONE){
+            response.close();
+            return false;
+        }
+        if (code >= 400)
+            throw new HttpException(code, inputStreamToString(response.getBody()), url, response.getHeader("Retry-After"));
+
+        return true;
+    }
+
+    static void close(Closeable c){
+        if (c == null)
+            return;
+
+        try{
+            c.close();
+        }
+        catch (IOException ignored){
+
         }
     }
 
@@ -133,17 +395,18 @@ public class Network {
      * @return the content
      */
     public static long getContentLength(String url) throws NoConnectionException {
-
-        if (offline)
-            throw new NoConnectionException();
-
-        try {
-            URL uri = new URL(url);
-            HttpURLConnection conn = (HttpURLConnection)uri.openConnection();
-            return conn.getContentLengthLong();
+        try (TransportResponse response = send(null, TransportRequest.head(url))){
+            if (response.isSuccessful())
+                return response.getContentLength();
         }
-        catch (UnknownHostException | NoRouteToHostException ignored){
-            throw new NoConnectionException();
+        catch (IOException e){
+            LaebenApp.handleException(e);
+            return 0;
+        }
+
+        // some servers only accept gets
+        try (TransportResponse response = send(null, TransportRequest.get(url))){
+            return response.getContentLength();
         }
         catch (IOException e){
             LaebenApp.handleException(e);
@@ -174,10 +437,10 @@ public class Network {
     }
 
     /**
-     * Stops all continuing download processes.
+     * Stops all continuing and queued download processes.
      */
     public static void stop(){
-        currentDownloads.forEach(NetworkToken::stop);
+        scheduler.stop();
     }
 
     /**
@@ -209,6 +472,10 @@ public class Network {
             HttpsURLConnection.setDefaultSSLSocketFactory(ssl.getSocketFactory());
 
             HttpsURLConnection.setDefaultHostnameVerifier((a, b) -> true);
+
+            // only effective before the first request of the http client
+            System.setProperty("jdk.internal.httpclient.disableHostnameVerification", "true");
+            HttpClientTransport.useSSLContext(ssl);
         }
         catch (Exception e) {
             LaebenApp.handleException(e);
@@ -217,18 +484,99 @@ public class Network {
 
     /**
      * Download a file from the net.
+     * <br/>
+     * Content is written to a part file which is moved over the destination when complete.
+     * Interrupted downloads of resumable tokens continue from where they left.
+     * <br/>
+     * If the token has an expected digest, the content is verified and an existing destination
+     * with the same size and digest is returned without a request. The content is materialized from the
+     * {@link #getContentStore() content store} if it is stored.
+     * <br/>
+     * Failed downloads are retried by the retry policy of the token and then continued from the mirrors in order.
+     * Content not matching the expected size or digest fails with a {@link ChecksumException}, which is handled like
+     * the other I/O failures.
      * @param token network token
      * @param handle progress handling
      * @return path of the downloaded file
      */
     public static Path download(NetworkToken token, boolean handle) throws NoConnectionException, StopException, HttpException, FileNotFoundException {
-        if (offline)
-            throw new NoConnectionException();
-        HttpsURLConnection conn = null;
+        var state = new DownloadState();
+        try{
+            return download(token, handle, state);
+        }
+        catch (FileNotFoundException fo){
+            throw fo;
+        }
+        catch (IOException ex){
+            LaebenApp.handleException(ex);
+            return state.destination != null ? state.destination : token.getDestination();
+        }
+    }
+
+    /**
+     * Download a file like {@link #download(NetworkToken, boolean)}, throwing the failures instead of handling them.
+     * @param token network token
+     * @param handle progress handling
+     * @return path of the downloaded file
+     */
+    static Path downloadOrThrow(NetworkToken token, boolean handle) throws IOException, NoConnectionException, StopException, HttpException {
+        return download(token, handle, new DownloadState());
+    }
+
+    private static Path download(NetworkToken token, boolean handle, DownloadState state) throws IOException, NoConnectionException, StopException, HttpException {
+        boolean record = DownloadEvent.enabled();
+        if (listeners.isEmpty() && !record)
+            return fetch(token, handle, state);
+
+        long start = System.nanoTime();
+        var event = record ? new DownloadEvent() : null;
+        if (event != null)
+            event.begin();
+        Exception error = null;
+        try{
+            return fetch(token, handle, state);
+        }
+        catch (IOException | NoConnectionException | StopException | HttpException | RuntimeException e){
+            error = e;
+            throw e;
+        }
+        finally {
+            var file = state.destination == null ? null : state.destination.toFile();
+            long size = error == null && file != null && file.isFile() ? file.length() : -1;
+            var timing = new NetworkTiming(NetworkTiming.Kind.DOWNLOAD, "GET", token.getUrl(), -1, state.attempts, 0, size,
+                    -1, -1, System.nanoTime() - start, state.cached, error);
+            fire(timing);
+
+            if (event != null){
+                event.end();
+                if (event.shouldCommit()){
+                    event.url = timing.getUrl();
+                    event.destination = state.destination == null ? null : state.destination.toString();
+                    event.bytes = size;
+                    event.attempts = timing.getAttempts();
+                    event.cached = timing.isCached();
+                    event.success = timing.isSuccessful();
+                    event.error = timing.getError() == null ? null : timing.getError().toString();
+                    event.commit();
+                }
+            }
+        }
+    }
+
+    /**
+     * State of a download reported to the listeners.
+     */
+    private static class DownloadState {
+        private Path destination;
+        private int attempts;
+        private boolean cached;
+    }
+
+    private static Path fetch(NetworkToken token, boolean handle, DownloadState state) throws IOException, NoConnectionException, StopException, HttpException {
         String url = token.getUrl();
         Path destination = token.getDestination();
         try{
-            currentDownloads.add(token);
+            scheduler.track(token);
 
             URL oldUri = new URL(url);
             url = url.replace(" ", "%20");
@@ -237,57 +585,106 @@ public class Network {
                 String fileName = getFileNameFromUrl(oldUri);
                 destination = destination.to(fileName);
             }
-            destination.prepare();
 
-            conn = (HttpsURLConnection) uri.openConnection();
-
-            long length = conn.getContentLengthLong();
-            long progress = 0;
-
-            try(InputStream stream = conn.getInputStream();
-                FileOutputStream file = new FileOutputStream(destination.toFile())
-            ){
-                byte[] buffer = new byte[4096];
-                int read;
-                while ((read = stream.read(buffer)) != -1){
-                    if (token.stopRequested())
-                        throw new StopException();
-                    file.write(buffer, 0, read);
-                    progress += buffer.length;
-                    if (handle)
-                        handler.execute(new ProgressEvent(DOWNLOAD, progress, length));
+            state.destination = destination;
+            state.cached = true;
+
+            ContentStore store = token.getDigest() != null ? contentStore : null;
+            if (isPresent(token, destination)){
+                if (store != null)
+                    store.add(destination, token.getDigestAlgorithm(), token.getDigest());
+                return destination;
+            }
+            if (store != null && store.materialize(destination, token.getDigestAlgorithm(), token.getDigest(), token.getSize())){
+                digestIndex.put(destination, token.getDigestAlgorithm(), token.getDigest());
+                return destination;
+            }
+
+            state.cached = false;
+            if (offline)
+                throw new NoConnectionException();
+
+            destination.prepare();
+            bandwidth.begin(token);
+            try{
+                List<String> mirrors = token.getMirrors();
+                for (int i = -1; i < mirrors.size(); i++){
+                    URL source = i == -1 ? uri : new URL(mirrors.get(i).replace(" ", "%20"));
+                    state.attempts++;
+                    try{
+                        download(source, url, destination, token, handle);
+                        break;
+                    }
+                    catch (NoConnectionException | HttpException | IOException e){
+                        if (i == mirrors.size() - 1 || offline)
+                            throw e;
+                    }
                 }
             }
-            destination.toFile().setLastModified(conn.getLastModified());
+            finally {
+                bandwidth.end(token);
+            }
+
+            if (token.getDigest() != null)
+                digestIndex.put(destination, token.getDigestAlgorithm(), token.getDigest());
+            if (store != null)
+                store.add(destination, token.getDigestAlgorithm(), token.getDigest());
         }
         catch (UnknownHostException | NoRouteToHostException ignored){
             throw new NoConnectionException();
         }
-        catch (FileNotFoundException fo){
-            throw fo;
-        }
-        catch (IOException ex){
-            handleNetIO(ex, conn, url);
-        }
         finally {
-            currentDownloads.remove(token);
+            scheduler.untrack(token);
+            if (handle)
+                progress.remove(token);
         }
 
         return destination;
     }
 
-    private static void handleNetIO(IOException ex, HttpURLConnection conn, String url) throws HttpException {
-        if (ex.getMessage().startsWith("Server returned")){
-            String[] spl = ex.getMessage().split(":");
-            if (spl.length != 4 || conn == null)
-                LaebenApp.handleException(ex);
-            else {
-                int code = Integer.parseInt(spl[1].split(" ")[1]);
-                throw new HttpException(code, inputStreamToString(conn.getErrorStream()), url);
+    /**
+     * Download from the source, retrying with the policy of the token.
+     */
+    private static void download(URL source, String key, Path destination, NetworkToken token, boolean handle) throws IOException, StopException, HttpException, NoConnectionException {
+        RetryPolicy policy = token.getRetryPolicy();
+        for (int attempt = 1; ; attempt++){
+            try{
+                Downloader.download(source, key, destination, token, handle ? progress : null);
+                return;
             }
+            catch (HttpException e){
+                if (policy == null || !policy.canRetry(attempt) || !policy.isRetryable("GET", e.getStatusCode()))
+                    throw e;
+
+                long delay = policy.delay(attempt, e.getRetryAfter());
+                if (delay < 0)
+                    throw e;
+                sleep(delay);
+            }
+            catch (IOException e){
+                if (policy == null || !policy.canRetry(attempt) || e instanceof FileNotFoundException || e instanceof ChecksumException || isInterrupt(e))
+                    throw e;
+
+                sleep(policy.delay(attempt, null));
+            }
+
+            if (token.stopRequested())
+                throw new StopException();
+        }
+    }
+
+    private static boolean isPresent(NetworkToken token, Path destination){
+        if (token.getDigest() == null || !destination.toFile().isFile())
+            return false;
+        if (token.getSize() >= 0 && destination.toFile().length() != token.getSize())
+            return false;
+
+        try{
+            return token.getDigest().equals(digestIndex.digest(destination, token.getDigestAlgorithm()));
+        }
+        catch (IOException e){
+            return false;
         }
-        else
-            LaebenApp.handleException(ex);
     }
 
     /**
@@ -308,96 +705,83 @@ public class Network {
      * @return the response
      */
     public static String post(String url, String body, List<RequestParameter> headers) throws NoConnectionException {
-        String answer = null;
-
-        if (offline)
-            throw new NoConnectionException();
-
-        try{
-            URL uri = new URL(url);
-
-            HttpURLConnection connection = (HttpURLConnection)uri.openConnection();
-            if (headers != null){
-                for (RequestParameter h : headers)
-                    connection.addRequestProperty(h.key(), h.value().toString());
-            }
-
-            connection.setRequestMethod("POST");
-            connection.setDoOutput(true);
-            connection.setDoInput(true);
-
-            try (OutputStream stream = connection.getOutputStream();
-                 OutputStreamWriter writer = new OutputStreamWriter(stream)){
+        return post(null, TransportRequest.post(url, body).withHeaders(headers).withCompression(true));
+    }
 
-                writer.write(body);
-            }
+    /**
+     * Post the request.
+     * @param transport the transport, null for the default one
+     * @param request the request
+     * @return the response or the error response
+     */
+    public static String post(Transport transport, TransportRequest request) throws NoConnectionException {
+        if (request.getLimiters().isEmpty())
+            request.withLimiters(List.of(bandwidth.getUploadLimiter()));
 
-            try(InputStream stream = connection.getInputStream()){
-                answer = streamToString(stream);
-            }
-            catch (IOException e){
-                if (connection.getErrorStream() != null){
-                    try(InputStream stream = connection.getErrorStream()){
-                        answer = streamToString(stream);
-                    }
-                    catch (IOException ex){
-                        LaebenApp.handleException(ex);
-                    }
-                }
-            }
-        }
-        catch (UnknownHostException | NoRouteToHostException ignored){
-            throw new NoConnectionException();
+        try (TransportResponse response = send(transport, request)){
+            return IOUtil.readString(body(response), response.getContentLength());
         }
         catch (IOException e){
             LaebenApp.handleException(e);
+            return null;
         }
-
-        return answer;
     }
-    private static String streamToString(InputStream str){
-        StringBuilder answer = new StringBuilder();
-        try(InputStreamReader reader = new InputStreamReader(str)){
-            char[] buffer = new char[4096];
-            int read;
-            while ((read = reader.read(buffer)) != -1){
-                answer.append(buffer, 0, read);
-            }
+
+    /**
+     * Send the request with a body, for example a streamed {@link RequestBody}.
+     * @param transport the transport, null for the default one
+     * @param request the request
+     * @return the response or the error response as a stream, null if failed
+     */
+    public static InputStream postStream(Transport transport, TransportRequest request) throws NoConnectionException {
+        if (request.getLimiters().isEmpty())
+            request.withLimiters(List.of(bandwidth.getUploadLimiter()));
+
+        TransportResponse response = null;
+        try{
+            response = send(transport, request);
+            return body(response);
         }
         catch (IOException e){
+            close(response);
             LaebenApp.handleException(e);
+            return null;
         }
-
-        return answer.toString();
     }
 
     /**
-     * Opens a temporary http server.
+     * Opens a temporary http server on the loopback address and waits for the first request.
+     * <br/>
+     * Preflight and favicon requests are answered without completing the wait.
      * @param port server port
      * @param response response of the server
      * @return the request from the client
      */
     public static String listenServer(int port, String response){
-        try(ServerSocket socket = new ServerSocket(port);
-            Socket a = socket.accept();
-            BufferedReader input = new BufferedReader(new InputStreamReader(a.getInputStream()));
-            BufferedWriter output = new BufferedWriter(new OutputStreamWriter(a.getOutputStream()))){
-
-            StringBuilder content = new StringBuilder();
-            String read;
-            do {
-                content.append(read = input.readLine()).append("\n");
-            }while (read != null && !read.isEmpty() && !read.trim().isEmpty());
-
-            output.write("HTTP/1.1 200 OK");
-
-            if (response != null){
-                output.write("\nContent-Type: text/html");
-                output.write("\nContent-Length: " + response.length());
-                output.write("\n\n" + response);
-            }
+        return listenServer(port, response, null);
+    }
+
+    /**
+     * Opens a temporary http server on the loopback address and waits for the first request.
+     * <br/>
+     * Preflight and favicon requests are answered without completing the wait.
+     * @param port server port
+     * @param response response of the server
+     * @param timeout max waiting time, null for no timeout
+     * @return the request from the client, null on timeout
+     */
+    public static String listenServer(int port, String response, Duration timeout){
+        try (var server = new LocalServer(port)){
+            server.route("/favicon.ico", r -> LocalServer.Response.status(404))
+                    .withFallback(r -> response == null ? LocalServer.Response.status(200) : LocalServer.Response.html(response));
 
-            return content.toString();
+            var request = server.await(r -> !r.getMethod().equals("OPTIONS") && !r.getPath().equals("/favicon.ico"), timeout);
+            return request.get().toString();
+        }
+        catch (ExecutionException e){
+            if (!(e.getCause() instanceof TimeoutException))
+                LaebenApp.handleException(e.getCause() instanceof Exception ? (Exception) e.getCause() : e);
+            return null;
         }
         catch (Exception e){
             LaebenApp.handleException(e);
@@ -407,6 +791,26 @@ public class Network {
 
     protected static boolean offline;
 
+    private static volatile Transport transport = "legacy".equals(System.getProperty("laeben.transport")) ? new UrlConnectionTransport() : new HttpClientTransport();
+
+    /**
+     * @return the default transport
+     */
+    public static Transport getTransport(){
+        return transport;
+    }
+
+    /**
+     * Set the default transport used by the requests without a transport.
+     * <br/>
+     * {@link HttpClientTransport} is the default, {@link UrlConnectionTransport} can be selected
+     * with <i>-Dlaeben.transport=legacy</i> too.
+     * @param transport the transport
+     */
+    public static void setTransport(Transport transport){
+        Network.transport = transport;
+    }
+
     public static boolean isOffline(){
         return offline;
     }
@@ -0,0 +1,15 @@
+package com.laeben.core.network;
+
+/**
+ * Listener of the finished requests and downloads of {@link Network}.
+ * <br/>
+ * Called on the thread finishing the request, so it should return quickly.
+ * A request finishes when its response body is read to the end or closed, or when it fails.
+ * @see NetworkMetrics
+ */
+public interface NetworkListener {
+    /**
+     * @param timing timings of the request or download
+     */
+    void onFinish(NetworkTiming timing);
+}
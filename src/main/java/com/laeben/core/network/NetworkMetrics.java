@@ -0,0 +1,275 @@
+package com.laeben.core.network;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.laeben.core.util.Histogram;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Listener aggregating the timings of the requests and downloads into histograms.
+ * <br/>
+ * Durations are recorded in milliseconds and sizes in bytes. Add it with {@link Network#addListener(NetworkListener)}.
+ */
+public class NetworkMetrics implements NetworkListener {
+    private static class Stats {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder retries = new LongAdder();
+        private final LongAdder cached = new LongAdder();
+        private final LongAdder bytesSent = new LongAdder();
+        private final LongAdder bytesReceived = new LongAdder();
+        private final LongAdder[] statuses = { new LongAdder(), new LongAdder(), new LongAdder(), new LongAdder(), new LongAdder() };
+
+        private final Histogram firstByte = Histogram.decimal(1, 100_000);
+        private final Histogram transfer = Histogram.decimal(1, 1_000_000);
+        private final Histogram total = Histogram.decimal(1, 1_000_000);
+        private final Histogram size = Histogram.exponential(1024, 4, 12);
+
+        private void record(NetworkTiming t){
+            count.increment();
+            if (!t.isSuccessful())
+                failures.increment();
+            if (t.isCached())
+                cached.increment();
+            retries.add(t.getRetries());
+            if (t.getBytesSent() > 0)
+                bytesSent.add(t.getBytesSent());
+            bytesReceived.add(Math.max(0, t.getBytesReceived()));
+            if (t.getStatus() >= 100 && t.getStatus() < 600)
+                statuses[t.getStatus() / 100 - 1].increment();
+
+            if (t.getFirstByteNanos() >= 0)
+                firstByte.record(millis(t.getFirstByteNanos()));
+            if (t.getTransferNanos() >= 0)
+                transfer.record(millis(t.getTransferNanos()));
+            total.record(millis(t.getTotalNanos()));
+            if (t.getBytesReceived() >= 0 && !t.isCached())
+                size.record(t.getBytesReceived());
+        }
+
+        private void reset(){
+            for (LongAdder a : new LongAdder[]{ count, failures, retries, cached, bytesSent, bytesReceived })
+                a.reset();
+            for (LongAdder a : statuses)
+                a.reset();
+            for (Histogram h : new Histogram[]{ firstByte, transfer, total, size })
+                h.reset();
+        }
+
+        private static long millis(long nanos){
+            return nanos / 1_000_000;
+        }
+    }
+
+    private final Map<NetworkTiming.Kind, Stats> stats = new EnumMap<>(NetworkTiming.Kind.class);
+
+    public NetworkMetrics(){
+        for (var kind : NetworkTiming.Kind.values())
+            stats.put(kind, new Stats());
+    }
+
+    @Override
+    public void onFinish(NetworkTiming timing){
+        stats.get(timing.getKind()).record(timing);
+    }
+
+    /**
+     * Remove all recorded values.
+     */
+    public void reset(){
+        stats.values().forEach(Stats::reset);
+    }
+
+    /**
+     * @return the current values
+     */
+    public Snapshot snapshot(){
+        var map = new EnumMap<NetworkTiming.Kind, KindSnapshot>(NetworkTiming.Kind.class);
+        stats.forEach((k, v) -> map.put(k, new KindSnapshot(v)));
+        return new Snapshot(map);
+    }
+
+    /**
+     * Values of the requests or downloads.
+     */
+    public static class KindSnapshot {
+        private final long count;
+        private final long failures;
+        private final long retries;
+        private final long cached;
+        private final long bytesSent;
+        private final long bytesReceived;
+        private final long[] statuses = new long[5];
+
+        private final Histogram.Snapshot firstByte;
+        private final Histogram.Snapshot transfer;
+        private final Histogram.Snapshot total;
+        private final Histogram.Snapshot size;
+
+        private KindSnapshot(Stats s){
+            count = s.count.sum();
+            failures = s.failures.sum();
+            retries = s.retries.sum();
+            cached = s.cached.sum();
+            bytesSent = s.bytesSent.sum();
+            bytesReceived = s.bytesReceived.sum();
+            for (int i = 0; i < statuses.length; i++)
+                statuses[i] = s.statuses[i].sum();
+
+            firstByte = s.firstByte.snapshot();
+            transfer = s.transfer.snapshot();
+            total = s.total.snapshot();
+            size = s.size.snapshot();
+        }
+
+        public long getCount(){
+            return count;
+        }
+
+        public long getFailures(){
+            return failures;
+        }
+
+        public long getRetries(){
+            return retries;
+        }
+
+        public long getCached(){
+            return cached;
+        }
+
+        public long getBytesSent(){
+            return bytesSent;
+        }
+
+        public long getBytesReceived(){
+            return bytesReceived;
+        }
+
+        /**
+         * @param statusClass first digit of the status codes, from 1 to 5
+         * @return count of the responses with the status codes
+         */
+        public long getStatusCount(int statusClass){
+            return statusClass < 1 || statusClass > 5 ? 0 : statuses[statusClass - 1];
+        }
+
+        /**
+         * @return time to the first byte in milliseconds
+         */
+        public Histogram.Snapshot getFirstByte(){
+            return firstByte;
+        }
+
+        /**
+         * @return body transfer durations in milliseconds
+         */
+        public Histogram.Snapshot getTransfer(){
+            return transfer;
+        }
+
+        /**
+         * @return whole durations in milliseconds
+         */
+        public Histogram.Snapshot getTotal(){
+            return total;
+        }
+
+        /**
+         * @return received sizes in bytes, excluding the cached downloads
+         */
+        public Histogram.Snapshot getSize(){
+            return size;
+        }
+
+        private JsonObject toJsonTree(){
+            var o = new JsonObject();
+            o.addProperty("count", count);
+            o.addProperty("failures", failures);
+            o.addProperty("retries", retries);
+            o.addProperty("cached", cached);
+            o.addProperty("bytesSent", bytesSent);
+            o.addProperty("bytesReceived", bytesReceived);
+            var s = new JsonObject();
+            for (int i = 0; i < statuses.length; i++)
+                s.addProperty((i + 1) + "xx", statuses[i]);
+            o.add("status", s);
+            o.add("firstByteMillis", histogram(firstByte));
+            o.add("transferMillis", histogram(transfer));
+            o.add("totalMillis", histogram(total));
+            o.add("sizeBytes", histogram(size));
+            return o;
+        }
+
+        private static JsonObject histogram(Histogram.Snapshot h){
+            var o = new JsonObject();
+            o.addProperty("count", h.getCount());
+            o.addProperty("sum", h.getSum());
+            o.addProperty("min", h.getMin());
+            o.addProperty("max", h.getMax());
+            o.addProperty("p50", h.percentile(50));
+            o.addProperty("p90", h.percentile(90));
+            o.addProperty("p99", h.percentile(99));
+
+            var buckets = new JsonArray();
+            long[] bounds = h.getBounds();
+            long[] counts = h.getCounts();
+            for (int i = 0; i < counts.length; i++){
+                if (counts[i] == 0)
+                    continue;
+                var b = new JsonObject();
+                b.addProperty("le", i < bounds.length ? String.valueOf(bounds[i]) : "+Inf");
+                b.addProperty("count", counts[i]);
+                buckets.add(b);
+            }
+            o.add("buckets", buckets);
+            return o;
+        }
+
+        @Override
+        public String toString(){
+            return String.format("count=%d failures=%d retries=%d cached=%d received=%d%n  firstByte: %s%n  transfer: %s%n  total: %s",
+                    count, failures, retries, cached, bytesReceived, firstByte, transfer, total);
+        }
+    }
+
+    /**
+     * Immutable values of the metrics.
+     */
+    public static class Snapshot {
+        private final Map<NetworkTiming.Kind, KindSnapshot> kinds;
+
+        private Snapshot(Map<NetworkTiming.Kind, KindSnapshot> kinds){
+            this.kinds = Collections.unmodifiableMap(kinds);
+        }
+
+        public KindSnapshot getRequests(){
+            return kinds.get(NetworkTiming.Kind.REQUEST);
+        }
+
+        public KindSnapshot getDownloads(){
+            return kinds.get(NetworkTiming.Kind.DOWNLOAD);
+        }
+
+        /**
+         * Export the values to compare them, the histograms contain only the non-empty buckets.
+         * @return the values as json
+         */
+        public String toJson(){
+            var o = new JsonObject();
+            kinds.forEach((k, v) -> o.add(k.name().toLowerCase(Locale.ROOT), v.toJsonTree()));
+            return new GsonBuilder().setPrettyPrinting().create().toJson(o);
+        }
+
+        @Override
+        public String toString(){
+            return "requests: " + getRequests() + "\ndownloads: " + getDownloads();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.laeben.core.network;
+
+/**
+ * Timings and sizes of a finished request or download.
+ * <br/>
+ * The phases of a request are the time to the first byte of the response and the transfer of the body.
+ * DNS lookup, connection and TLS handshake are not available from {@link java.net.http.HttpClient}, so they are
+ * not reported as phases and are a part of the time to the first byte.
+ * Durations are in nanoseconds, negative if the phase was not reached.
+ */
+public class NetworkTiming {
+    public enum Kind {
+        /**
+         * A request sent by {@link Network}, including the requests of the {@link com.laeben.core.network.requester.Requester}s
+         * and the range requests of the downloads.
+         */
+        REQUEST,
+        /**
+         * A whole {@link Network#download} call.
+         */
+        DOWNLOAD
+    }
+
+    private final Kind kind;
+    private final String method;
+    private final String url;
+    private final int status;
+    private final int attempts;
+    private final long bytesSent;
+    private final long bytesReceived;
+    private final long firstByte;
+    private final long transfer;
+    private final long total;
+    private final boolean cached;
+    private final Exception error;
+
+    NetworkTiming(Kind kind, String method, String url, int status, int attempts, long bytesSent, long bytesReceived,
+                  long firstByte, long transfer, long total, boolean cached, Exception error){
+        this.kind = kind;
+        this.method = method;
+        this.url = url;
+        this.status = status;
+        this.attempts = attempts;
+        this.bytesSent = bytesSent;
+        this.bytesReceived = bytesReceived;
+        this.firstByte = firstByte;
+        this.transfer = transfer;
+        this.total = total;
+        this.cached = cached;
+        this.error = error;
+    }
+
+    public Kind getKind(){
+        return kind;
+    }
+
+    public String getMethod(){
+        return method;
+    }
+
+    public String getUrl(){
+        return url;
+    }
+
+    /**
+     * @return status code of the last response, -1 if there is no response
+     */
+    public int getStatus(){
+        return status;
+    }
+
+    /**
+     * @return count of the attempts, more than one if retried or downloaded from a mirror
+     */
+    public int getAttempts(){
+        return attempts;
+    }
+
+    public int getRetries(){
+        return Math.max(0, attempts - 1);
+    }
+
+    /**
+     * @return length of the request body, -1 if unknown
+     */
+    public long getBytesSent(){
+        return bytesSent;
+    }
+
+    /**
+     * @return bytes read from the response body before decoding, or size of the downloaded file
+     */
+    public long getBytesReceived(){
+        return bytesReceived;
+    }
+
+    /**
+     * @return time from the start of the last attempt to its response headers
+     */
+    public long getFirstByteNanos(){
+        return firstByte;
+    }
+
+    /**
+     * @return time from the response headers to the end of the body
+     */
+    public long getTransferNanos(){
+        return transfer;
+    }
+
+    /**
+     * @return time of the whole call, including the retries
+     */
+    public long getTotalNanos(){
+        return total;
+    }
+
+    /**
+     * @return true if the download was already present or materialized from the {@link ContentStore}
+     */
+    public boolean isCached(){
+        return cached;
+    }
+
+    /**
+     * @return the failure, null if succeeded
+     */
+    public Exception getError(){
+        return error;
+    }
+
+    public boolean isSuccessful(){
+        return error == null && (status == -1 || status < 400);
+    }
+
+    @Override
+    public String toString(){
+        return String.format("%s %s %s status=%d attempts=%d received=%d firstByte=%s transfer=%s total=%s%s",
+                kind, method, url, status, attempts, bytesReceived, millis(firstByte), millis(transfer), millis(total),
+                error == null ? "" : " error=" + error);
+    }
+
+    private static String millis(long nanos){
+        return nanos < 0 ? "-" : String.format("%.1fms", nanos / 1e6);
+    }
+}
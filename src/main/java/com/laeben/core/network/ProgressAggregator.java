@@ -0,0 +1,201 @@
+package com.laeben.core.network;
+
+import com.laeben.core.network.entity.NetworkToken;
+import com.laeben.core.util.EventHandler;
+import com.laeben.core.util.events.DownloadProgressEvent;
+import com.laeben.core.util.events.ProgressEvent;
+
+import java.time.Duration;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Rate limited progress of the running downloads.
+ * <br/>
+ * Every download reports to the handler with the {@link Network#DOWNLOAD} key. All downloads together
+ * report to the separate total handler with the {@link Network#DOWNLOAD_TOTAL} key, if there is one.
+ * Events are fired when the interval has passed or the progress has advanced by the step since the last
+ * event, and always when a download ends. Handlers are called out of the lock of the aggregator, so a slow
+ * handler delays only the download reporting to it.
+ */
+public class ProgressAggregator {
+    public static final Duration DEFAULT_INTERVAL = Duration.ofMillis(100);
+
+    private static final double SMOOTHING = 0.3;
+    private static final long MIN_SAMPLE = 50_000_000;
+
+    private static class Tracker {
+        private long current;
+        private long total;
+        private double rate;
+
+        private long sampleTime;
+        private long sampleBytes;
+
+        private boolean reported;
+        private long reportTime;
+        private long reportBytes;
+
+        private Tracker(long current, long now){
+            this.current = current;
+            this.sampleBytes = current;
+            this.sampleTime = now;
+        }
+
+        private void sample(long now){
+            long elapsed = now - sampleTime;
+            if (elapsed < MIN_SAMPLE)
+                return;
+
+            double instant = (current - sampleBytes) * 1e9 / elapsed;
+            rate = rate == 0 ? instant : rate + SMOOTHING * (instant - rate);
+            sampleTime = now;
+            sampleBytes = current;
+        }
+    }
+
+    private final EventHandler<ProgressEvent> handler;
+    private final EventHandler<ProgressEvent> totalHandler;
+    private final Map<NetworkToken, Tracker> trackers = new IdentityHashMap<>();
+    private final Tracker global = new Tracker(0, 0);
+
+    private long interval = DEFAULT_INTERVAL.toNanos();
+    private double step;
+
+    public ProgressAggregator(EventHandler<ProgressEvent> handler){
+        this(handler, null);
+    }
+
+    /**
+     * Create a new aggregator.
+     * @param handler handler of the progress of every download
+     * @param totalHandler handler of the progress of all downloads together, null for none
+     */
+    public ProgressAggregator(EventHandler<ProgressEvent> handler, EventHandler<ProgressEvent> totalHandler){
+        this.handler = handler;
+        this.totalHandler = totalHandler;
+    }
+
+    /**
+     * Set the min time between two events of the same download.
+     * @param interval the interval, zero to fire on every update
+     * @return the aggregator
+     */
+    public synchronized ProgressAggregator withInterval(Duration interval){
+        this.interval = interval.toNanos();
+        return this;
+    }
+
+    /**
+     * Also fire when the progress has advanced by the step before the interval has passed.
+     * @param step fraction of the total, for example 0.01 for every percent, zero to disable
+     * @return the aggregator
+     */
+    public synchronized ProgressAggregator withStep(double step){
+        this.step = step;
+        return this;
+    }
+
+    /**
+     * Update the progress of the download.
+     * @param token token of the download
+     * @param current written bytes
+     * @param total total bytes, negative if unknown
+     */
+    void update(NetworkToken token, long current, long total){
+        ProgressEvent event = null;
+        ProgressEvent totalEvent = null;
+        synchronized (this){
+            long now = System.nanoTime();
+            Tracker t = trackers.get(token);
+            if (t == null){
+                t = new Tracker(0, now);
+                t.sampleBytes = current;
+                trackers.put(token, t);
+            }
+
+            global.current += current - t.current;
+            t.current = current;
+            t.total = total;
+            t.sample(now);
+            if (due(t, now) || (total >= 0 && current >= total))
+                event = report(token, t, now);
+
+            if (totalHandler != null && due(global, now))
+                totalEvent = reportGlobal(now);
+        }
+
+        dispatch(event, totalEvent);
+    }
+
+    /**
+     * End the download and fire its last progress.
+     * @param token token of the download
+     */
+    void remove(NetworkToken token){
+        ProgressEvent event = null;
+        ProgressEvent totalEvent = null;
+        synchronized (this){
+            Tracker t = trackers.remove(token);
+            if (t == null)
+                return;
+
+            long now = System.nanoTime();
+            global.current -= t.current;
+            if (!t.reported || t.reportBytes != t.current)
+                event = report(token, t, now);
+            if (totalHandler != null)
+                totalEvent = reportGlobal(now);
+        }
+
+        dispatch(event, totalEvent);
+    }
+
+    /**
+     * @return count of the downloads with progress
+     */
+    public synchronized int getCount(){
+        return trackers.size();
+    }
+
+    private boolean due(Tracker t, long now){
+        if (!t.reported || now - t.reportTime >= interval)
+            return true;
+
+        return step > 0 && t.total > 0 && (t.current - t.reportBytes) >= step * t.total;
+    }
+
+    private void dispatch(ProgressEvent event, ProgressEvent totalEvent){
+        if (event != null)
+            handler.execute(event);
+        if (totalEvent != null)
+            totalHandler.execute(totalEvent);
+    }
+
+    private ProgressEvent report(NetworkToken token, Tracker t, long now){
+        t.reported = true;
+        t.reportTime = now;
+        t.reportBytes = t.current;
+        return new DownloadProgressEvent(Network.DOWNLOAD, token, 1, t.current, t.total, t.rate);
+    }
+
+    private ProgressEvent reportGlobal(long now){
+        long current = 0;
+        long total = 0;
+        double rate = 0;
+        for (Tracker t : trackers.values()){
+            current += t.current;
+            rate += t.rate;
+            if (total >= 0)
+                total = t.total >= 0 ? total + t.total : -1;
+        }
+
+        global.current = current;
+        global.total = total;
+        global.rate = rate;
+        global.reported = true;
+        global.reportTime = now;
+        global.reportBytes = current;
+        return new DownloadProgressEvent(Network.DOWNLOAD_TOTAL, null, trackers.size(), current, total, rate);
+    }
+}
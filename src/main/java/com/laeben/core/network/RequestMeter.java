@@ -0,0 +1,196 @@
+package com.laeben.core.network;
+
+import com.laeben.core.jfr.HttpRequestEvent;
+import com.laeben.core.network.transport.TransportRequest;
+import com.laeben.core.network.transport.TransportResponse;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Timer of a request sent by {@link Network#send}, reporting it to the listeners and the flight recorder when it finishes.
+ */
+class RequestMeter {
+    private final TransportRequest request;
+    private final long start = System.nanoTime();
+    private final HttpRequestEvent event;
+
+    private long attemptStart;
+    private long firstByte = -1;
+    private long headers;
+    private int attempts;
+    private int status = -1;
+
+    private volatile Metered current;
+
+    RequestMeter(TransportRequest request){
+        this.request = request;
+        if (HttpRequestEvent.enabled()){
+            event = new HttpRequestEvent();
+            event.begin();
+        }
+        else
+            event = null;
+    }
+
+    void attempt(){
+        attempts++;
+        current = null;
+        attemptStart = System.nanoTime();
+    }
+
+    /**
+     * Drop the response of the attempt before it is closed for a retry.
+     */
+    void discard(){
+        current = null;
+    }
+
+    /**
+     * @param response the raw response of the attempt
+     * @return the response reporting when its body is read or closed
+     */
+    TransportResponse response(TransportResponse response){
+        headers = System.nanoTime();
+        firstByte = headers - attemptStart;
+        status = response.getStatusCode();
+        var m = new Metered(response);
+        current = m;
+        return m;
+    }
+
+    void fail(Exception e){
+        current = null;
+        finish(timing(-1, -1, e));
+    }
+
+    private void finish(NetworkTiming timing){
+        Network.fire(timing);
+        if (event == null)
+            return;
+
+        event.end();
+        if (!event.shouldCommit())
+            return;
+
+        event.method = timing.getMethod();
+        event.url = timing.getUrl();
+        event.status = timing.getStatus();
+        event.attempts = timing.getAttempts();
+        event.bytesSent = timing.getBytesSent();
+        event.bytesReceived = timing.getBytesReceived();
+        event.firstByte = timing.getFirstByteNanos();
+        event.success = timing.isSuccessful();
+        event.error = timing.getError() == null ? null : timing.getError().toString();
+        event.commit();
+    }
+
+    private NetworkTiming timing(long received, long transfer, Exception e){
+        long sent = request.getStreamingBody() != null ? request.getStreamingBody().getLength() : request.getBody() != null ? request.getBody().length : 0;
+        return new NetworkTiming(NetworkTiming.Kind.REQUEST, request.getMethod(), request.getUrl(), status, Math.max(1, attempts),
+                sent, received, firstByte, transfer, System.nanoTime() - start, false, e);
+    }
+
+    private class Metered implements TransportResponse {
+        private final TransportResponse response;
+        private InputStream body;
+        private long received;
+        private boolean finished;
+
+        private Metered(TransportResponse response){
+            this.response = response;
+        }
+
+        @Override
+        public int getStatusCode(){
+            return response.getStatusCode();
+        }
+
+        @Override
+        public String getHeader(String name){
+            return response.getHeader(name);
+        }
+
+        @Override
+        public Map<String, List<String>> getHeaders(){
+            return response.getHeaders();
+        }
+
+        @Override
+        public long getContentLength(){
+            return response.getContentLength();
+        }
+
+        @Override
+        public synchronized InputStream getBody(){
+            if (body == null){
+                body = new FilterInputStream(response.getBody()){
+                    @Override
+                    public int read() throws IOException {
+                        int b = super.read();
+                        count(b == -1 ? -1 : 1);
+                        return b;
+                    }
+
+                    @Override
+                    public int read(byte[] b, int off, int len) throws IOException {
+                        int read = super.read(b, off, len);
+                        count(read);
+                        return read;
+                    }
+
+                    @Override
+                    public long skip(long n) throws IOException {
+                        long skipped = super.skip(n);
+                        received += skipped;
+                        return skipped;
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        try{
+                            super.close();
+                        }
+                        finally {
+                            finish();
+                        }
+                    }
+                };
+            }
+
+            return body;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try{
+                response.close();
+            }
+            finally {
+                finish();
+            }
+        }
+
+        private void count(int read){
+            if (read == -1)
+                finish();
+            else
+                received += read;
+        }
+
+        private void finish(){
+            synchronized (this){
+                if (finished)
+                    return;
+                finished = true;
+            }
+
+            // retried responses are not reported
+            if (current == this)
+                RequestMeter.this.finish(timing(received, System.nanoTime() - headers, null));
+        }
+    }
+}
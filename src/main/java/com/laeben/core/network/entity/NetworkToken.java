@@ -2,12 +2,32 @@ package com.laeben.core.network.entity;
 
 import com.laeben.core.entity.CancellableToken;
 import com.laeben.core.entity.Path;
+import com.laeben.core.util.BandwidthLimiter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
 
 public class NetworkToken extends CancellableToken<NetworkToken> {
+    public static final long DEFAULT_MIN_SEGMENT_SIZE = 1024 * 1024;
+    public static final String DEFAULT_DIGEST_ALGORITHM = "SHA-256";
+
     private final String url;
     private final Path destination;
     private final boolean uon;
 
+    private int segments = 1;
+    private long minSegmentSize = DEFAULT_MIN_SEGMENT_SIZE;
+    private boolean resumable = true;
+    private String digestAlgorithm = DEFAULT_DIGEST_ALGORITHM;
+    private String digest;
+    private long size = -1;
+    private final BandwidthLimiter limiter = new BandwidthLimiter(BandwidthLimiter.UNLIMITED);
+    private boolean background;
+    private RetryPolicy retryPolicy;
+    private final List<String> mirrors = new ArrayList<>();
+
     private NetworkToken(String url, Path destination, boolean useOriginalName) {
         this.url = url;
         this.destination = destination;
@@ -25,6 +45,120 @@ public class NetworkToken extends CancellableToken<NetworkToken> {
         return new NetworkToken(url, destination, useOriginalName);
     }
 
+    /**
+     * Split the download into byte ranges fetched in parallel.
+     * <br/>
+     * Falls back to a single stream if the server does not accept ranges.
+     * @param segments max count of the parallel ranges
+     * @return the token
+     */
+    public NetworkToken withSegments(int segments){
+        this.segments = Math.max(1, segments);
+        return this;
+    }
+
+    /**
+     * Set the minimum size of a range. Small files are not split below this size.
+     * @param size size in bytes
+     * @return the token
+     */
+    public NetworkToken withMinSegmentSize(long size){
+        this.minSegmentSize = Math.max(1, size);
+        return this;
+    }
+
+    /**
+     * Keep the part file and its checkpoint when the download is interrupted,
+     * so a later download of the same token continues from the committed bytes.
+     * <br/>
+     * Enabled by default.
+     * @param resumable is download resumable
+     * @return the token
+     */
+    public NetworkToken withResume(boolean resumable){
+        this.resumable = resumable;
+        return this;
+    }
+
+    /**
+     * Set the expected SHA-256 digest of the content.
+     * <br/>
+     * The download fails with a checksum exception if the digest does not match and
+     * an existing destination with the same digest is not downloaded again.
+     * @param digest hex digest, null for no verification
+     * @return the token
+     */
+    public NetworkToken withDigest(String digest){
+        return withDigest(DEFAULT_DIGEST_ALGORITHM, digest);
+    }
+
+    /**
+     * Set the expected digest of the content.
+     * @param algorithm message digest algorithm, for example <i>SHA-1</i>
+     * @param digest hex digest, null for no verification
+     * @return the token
+     * @see #withDigest(String)
+     */
+    public NetworkToken withDigest(String algorithm, String digest){
+        this.digestAlgorithm = algorithm;
+        this.digest = digest == null ? null : digest.toLowerCase(Locale.US);
+        return this;
+    }
+
+    /**
+     * Set the expected size of the content.
+     * @param size size in bytes, negative if unknown
+     * @return the token
+     */
+    public NetworkToken withSize(long size){
+        this.size = size;
+        return this;
+    }
+
+    /**
+     * Limit the bandwidth of the download.
+     * <br/>
+     * Can be called again while the download is running to change the limit.
+     * @param bytesPerSecond the rate, {@link BandwidthLimiter#UNLIMITED} for no limit
+     * @return the token
+     */
+    public NetworkToken withBandwidth(long bytesPerSecond){
+        limiter.setRate(bytesPerSecond);
+        return this;
+    }
+
+    /**
+     * Mark the download as a background download yielding to the foreground ones.
+     * @param background is download in the background
+     * @return the token
+     */
+    public NetworkToken withBackground(boolean background){
+        this.background = background;
+        return this;
+    }
+
+    /**
+     * Retry the interrupted or failed download with the policy, continuing from the received bytes.
+     * @param policy the policy, null for no retry
+     * @return the token
+     */
+    public NetworkToken withRetryPolicy(RetryPolicy policy){
+        this.retryPolicy = policy;
+        return this;
+    }
+
+    /**
+     * Add mirrors of the url tried in order when the download from the previous one fails.
+     * <br/>
+     * Received bytes are kept when the mirror serves the same content.
+     * @param urls mirror urls
+     * @return the token
+     */
+    public NetworkToken withMirrors(String... urls){
+        Collections.addAll(mirrors, urls);
+        return this;
+    }
+
     public String getUrl(){
         return url;
     }
@@ -34,4 +168,37 @@ public class NetworkToken extends CancellableToken<NetworkToken> {
     public boolean useOriginalName(){
         return uon;
     }
+    public int getSegments(){
+        return segments;
+    }
+    public long getMinSegmentSize(){
+        return minSegmentSize;
+    }
+    public boolean isResumable(){
+        return resumable;
+    }
+    public String getDigestAlgorithm(){
+        return digestAlgorithm;
+    }
+    public String getDigest(){
+        return digest;
+    }
+    public long getSize(){
+        return size;
+    }
+    /**
+     * @return limiter of the download, unlimited unless {@link #withBandwidth(long)} is called
+     */
+    public BandwidthLimiter getBandwidthLimiter(){
+        return limiter;
+    }
+    public boolean isBackground(){
+        return background;
+    }
+    public RetryPolicy getRetryPolicy(){
+        return retryPolicy;
+    }
+    public List<String> getMirrors(){
+        return Collections.unmodifiableList(mirrors);
+    }
 }
@@ -0,0 +1,167 @@
+package com.laeben.core.network.entity;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Retry policy of the failed requests and downloads.
+ * <br/>
+ * Attempts are delayed with an exponential backoff with jitter, or by the <i>Retry-After</i>
+ * header of the response if it is longer. Requests other than GET, HEAD, PUT, DELETE and OPTIONS
+ * are only retried on 429 and 503 unless the unsafe methods are allowed.
+ */
+public class RetryPolicy {
+    public static final Set<Integer> DEFAULT_STATUSES = Set.of(408, 425, 429, 500, 502, 503, 504);
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+    public static final Duration DEFAULT_BASE_DELAY = Duration.ofMillis(500);
+    public static final Duration DEFAULT_MAX_DELAY = Duration.ofSeconds(30);
+
+    private static final Set<String> IDEMPOTENT = Set.of("GET", "HEAD", "PUT", "DELETE", "OPTIONS");
+
+    private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+    private Duration baseDelay = DEFAULT_BASE_DELAY;
+    private Duration maxDelay = DEFAULT_MAX_DELAY;
+    private double jitter = 0.5;
+    private Set<Integer> statuses = DEFAULT_STATUSES;
+    private boolean unsafe;
+
+    private RetryPolicy(){
+
+    }
+
+    /**
+     * Create a new policy with the default values.
+     * @return the policy
+     */
+    public static RetryPolicy create(){
+        return new RetryPolicy();
+    }
+
+    /**
+     * @param maxAttempts max count of the attempts including the first one
+     * @return the policy
+     */
+    public RetryPolicy withMaxAttempts(int maxAttempts){
+        this.maxAttempts = Math.max(1, maxAttempts);
+        return this;
+    }
+
+    /**
+     * @param base delay before the second attempt, doubled for each next attempt
+     * @param max max delay between two attempts
+     * @return the policy
+     */
+    public RetryPolicy withDelay(Duration base, Duration max){
+        this.baseDelay = base;
+        this.maxDelay = max;
+        return this;
+    }
+
+    /**
+     * @param jitter max fraction of the delay removed randomly, between 0 and 1
+     * @return the policy
+     */
+    public RetryPolicy withJitter(double jitter){
+        this.jitter = Math.max(0, Math.min(1, jitter));
+        return this;
+    }
+
+    /**
+     * @param statuses retryable response statuses
+     * @return the policy
+     */
+    public RetryPolicy withStatuses(Collection<Integer> statuses){
+        this.statuses = Set.copyOf(statuses);
+        return this;
+    }
+
+    /**
+     * Also retry the requests which may have been processed, for example POST on a connection failure.
+     * @param unsafe allow the unsafe methods
+     * @return the policy
+     */
+    public RetryPolicy withUnsafeMethods(boolean unsafe){
+        this.unsafe = unsafe;
+        return this;
+    }
+
+    /**
+     * @param attempt count of the attempts done
+     * @return true if another attempt is allowed
+     */
+    public boolean canRetry(int attempt){
+        return attempt < maxAttempts;
+    }
+
+    /**
+     * @param method http method
+     * @param status response status
+     * @return true if the response is retryable
+     */
+    public boolean isRetryable(String method, int status){
+        if (!statuses.contains(status))
+            return false;
+
+        return status == 429 || status == 503 || isRetryable(method);
+    }
+
+    /**
+     * @param method http method
+     * @return true if the request is retryable after a connection failure
+     */
+    public boolean isRetryable(String method){
+        return unsafe || IDEMPOTENT.contains(method);
+    }
+
+    /**
+     * Get the delay before the next attempt.
+     * @param attempt count of the attempts done
+     * @param retryAfter <i>Retry-After</i> header of the response, null if none
+     * @return the delay in milliseconds, negative if the server asks to wait longer than the max delay
+     */
+    public long delay(int attempt, String retryAfter){
+        long max = maxDelay.toMillis();
+        long backoff = Math.min(max, baseDelay.toMillis() << Math.min(30, attempt - 1));
+        backoff -= (long) (backoff * jitter * ThreadLocalRandom.current().nextDouble());
+
+        long after = parseRetryAfter(retryAfter);
+        if (after > max)
+            return -1;
+
+        return Math.max(backoff, after);
+    }
+
+    public int getMaxAttempts(){
+        return maxAttempts;
+    }
+
+    /**
+     * @return delay in milliseconds, zero if the header is missing or invalid
+     */
+    private static long parseRetryAfter(String value){
+        if (value == null)
+            return 0;
+
+        value = value.trim();
+        try{
+            return Math.max(0, Long.parseLong(value) * 1000);
+        }
+        catch (NumberFormatException ignored){
+
+        }
+
+        try{
+            var date = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME.withLocale(Locale.US));
+            return Math.max(0, Duration.between(ZonedDateTime.now(date.getZone()), date).toMillis());
+        }
+        catch (DateTimeParseException e){
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.laeben.core.network.requester;
+
+import com.laeben.core.entity.exception.HttpException;
+import com.laeben.core.entity.exception.NoConnectionException;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Shares a single in-flight request between the concurrent identical requests.
+ * <br/>
+ * Only the running requests are shared, a request started after the completion of an identical one is sent again.
+ */
+public class RequestCoalescer {
+    interface Load {
+        String load() throws NoConnectionException, HttpException;
+    }
+
+    private final Map<Object, CompletableFuture<String>> flights = new HashMap<>();
+
+    private long requests;
+    private long saved;
+
+    RequestCoalescer(){
+
+    }
+
+    /**
+     * Failure shared by a load interrupted on the thread of its owner, the waiting threads run the load again.
+     */
+    private static class Abandoned extends RuntimeException {
+        private Abandoned(){
+            super("Request was interrupted.", null, false, false);
+        }
+    }
+
+    /**
+     * Run the load, or wait for the running load of the same key.
+     * <br/>
+     * Waiting threads get their own copy of the failure of the load. The result of a load interrupted on its
+     * thread, for example by cancelling its async request, is not shared and a waiting thread runs the load again.
+     * @param key key of the request, compared with its equals
+     * @param load the load
+     * @return result of the load
+     * @throws CancellationException if the thread is interrupted while waiting
+     */
+    String get(Object key, Load load) throws NoConnectionException, HttpException {
+        boolean retry = false;
+        while (true){
+            CompletableFuture<String> future;
+            boolean owner = false;
+            synchronized (this){
+                if (!retry)
+                    requests++;
+                future = flights.get(key);
+                if (future == null){
+                    future = new CompletableFuture<>();
+                    flights.put(key, future);
+                    owner = true;
+                }
+                else if (!retry)
+                    saved++;
+            }
+
+            if (owner)
+                return run(key, future, load);
+
+            try{
+                return await(future);
+            }
+            catch (Abandoned e){
+                synchronized (this){
+                    // the owner may not have removed it yet
+                    flights.remove(key, future);
+                    if (!retry)
+                        saved--;
+                }
+                retry = true;
+            }
+        }
+    }
+
+    private String run(Object key, CompletableFuture<String> future, Load load) throws NoConnectionException, HttpException {
+        try{
+            String value = load.load();
+            // the interrupted transports return no content, it is not the result of the request
+            if (Thread.currentThread().isInterrupted())
+                future.completeExceptionally(new Abandoned());
+            else
+                future.complete(value);
+            return value;
+        }
+        catch (NoConnectionException | HttpException | RuntimeException e){
+            if (Thread.currentThread().isInterrupted())
+                future.completeExceptionally(new Abandoned());
+            else
+                future.completeExceptionally(e);
+            throw e;
+        }
+        finally {
+            synchronized (this){
+                flights.remove(key, future);
+            }
+            // errors should not leave the waiting requests blocked
+            future.completeExceptionally(new IllegalStateException("Request failed."));
+        }
+    }
+
+    private static String await(CompletableFuture<String> future) throws NoConnectionException, HttpException {
+        try{
+            return future.get();
+        }
+        catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for an identical request.");
+        }
+        catch (ExecutionException e){
+            Throwable t = e.getCause();
+            if (t instanceof Abandoned)
+                throw (Abandoned) t;
+            if (t instanceof NoConnectionException)
+                throw (NoConnectionException) new NoConnectionException().initCause(t);
+            if (t instanceof HttpException){
+                var h = (HttpException) t;
+                throw (HttpException) new HttpException(h.getStatusCode(), h.getSimpleMessage(), h.getUrl(), h.getRetryAfter()).initCause(t);
+            }
+
+            throw new IllegalStateException("Identical request failed.", t);
+        }
+    }
+
+    /**
+     * @return count of the requests passed to the coalescer
+     */
+    public synchronized long getRequestCount(){
+        return requests;
+    }
+
+    /**
+     * @return count of the requests served by an identical running request
+     */
+    public synchronized long getSavedCount(){
+        return saved;
+    }
+
+    /**
+     * @return count of the running requests
+     */
+    public synchronized int getInFlightCount(){
+        return flights.size();
+    }
+}
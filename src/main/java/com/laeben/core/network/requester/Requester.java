@@ -1,25 +1,108 @@
 package com.laeben.core.network.requester;
 
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.laeben.core.entity.CancellableToken;
 import com.laeben.core.entity.exception.HttpException;
 import com.laeben.core.entity.exception.NoConnectionException;
 import com.laeben.core.entity.RequestParameter;
+import com.laeben.core.entity.exception.StopException;
+import com.laeben.core.network.HttpCache;
 import com.laeben.core.network.Network;
+import com.laeben.core.network.entity.RetryPolicy;
+import com.laeben.core.network.transport.RequestBody;
+import com.laeben.core.network.transport.Transport;
+import com.laeben.core.network.transport.TransportRequest;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.*;
 
 /**
  * Network requester.
  */
 public class Requester {
+    private static final Gson GSON = new Gson();
+    private static final ExecutorService ASYNC = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "laeben-requester");
+        t.setDaemon(true);
+        return t;
+    });
+    private static final ScheduledExecutorService WATCH = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "laeben-requester-watch");
+        t.setDaemon(true);
+        return t;
+    });
+    private static final long STOP_POLL = 100;
+    private static final RequestCoalescer COALESCER = new RequestCoalescer();
+
+    private interface Call<T> {
+        T call() throws Exception;
+    }
+
+    /**
+     * Thread of a running async request, interrupted to abort the request.
+     */
+    private static class Running {
+        private Thread thread;
+        private boolean aborted;
+
+        /**
+         * @return false if the request is already aborted
+         */
+        private synchronized boolean begin(){
+            if (aborted)
+                return false;
+            thread = Thread.currentThread();
+            return true;
+        }
+
+        private synchronized void abort(){
+            aborted = true;
+            if (thread != null)
+                thread.interrupt();
+        }
+
+        private void end(){
+            synchronized (this){
+                boolean interrupted = thread != null && aborted;
+                thread = null;
+                if (!interrupted)
+                    return;
+            }
+
+            // do not leave the interrupt to the next task of the executor
+            Thread.interrupted();
+        }
+    }
+
     private final List<RequestParameter> headers;
     private final List<RequestParameter> parameters;
     private String start = "https://";
     private String url;
 
+    private Transport transport;
+    private Duration connectTimeout;
+    private Duration readTimeout;
+
+    private Executor executor = ASYNC;
+    private CancellableToken<?> token;
+    private HttpCache cache;
+    private RetryPolicy retryPolicy;
+    private int postCompression = -1;
+    private boolean coalesce = true;
+
     public Requester(String baseUrl){
         url = baseUrl
                 .replace("https://", "")
@@ -41,6 +124,20 @@ public class Requester {
         return new Requester(baseUrl);
     }
 
+    /**
+     * @return the shared executor of the async requests
+     */
+    public static Executor getDefaultExecutor(){
+        return ASYNC;
+    }
+
+    /**
+     * @return the coalescer of the identical concurrent GET requests
+     */
+    public static RequestCoalescer getCoalescer(){
+        return COALESCER;
+    }
+
     /**
      * Mark requester as http.
      * @return the requester
@@ -88,12 +185,150 @@ public class Requester {
         return this;
     }
 
+    /**
+     * Send the requests with the transport.
+     * @param transport the transport, null for the default one of {@link Network}
+     * @return the requester
+     */
+    public Requester withTransport(Transport transport){
+        this.transport = transport;
+        return this;
+    }
+
+    public Requester withConnectTimeout(Duration timeout){
+        this.connectTimeout = timeout;
+        return this;
+    }
+
+    public Requester withReadTimeout(Duration timeout){
+        this.readTimeout = timeout;
+        return this;
+    }
+
+    /**
+     * Run the async requests on the executor.
+     * @param executor the executor, null for the default one
+     * @return the requester
+     */
+    public Requester withExecutor(Executor executor){
+        this.executor = executor != null ? executor : ASYNC;
+        return this;
+    }
+
+    /**
+     * Cancel the async requests with the token.
+     * <br/>
+     * Stopped requests complete with {@link StopException} and cancelling the future stops the token.
+     * Both abort the running request by interrupting its thread, the legacy transport notices it at the next read.
+     * @param token the token
+     * @return the requester
+     */
+    public Requester withToken(CancellableToken<?> token){
+        this.token = token;
+        return this;
+    }
+
+    /**
+     * Serve the GET requests through the cache.
+     * @param cache the cache, null for no cache
+     * @return the requester
+     */
+    public Requester withCache(HttpCache cache){
+        this.cache = cache;
+        return this;
+    }
+
+    /**
+     * Retry the failed requests with the policy.
+     * @param policy the policy, null for no retry
+     * @return the requester
+     */
+    public Requester withRetryPolicy(RetryPolicy policy){
+        this.retryPolicy = policy;
+        return this;
+    }
+
+    /**
+     * Compress the post bodies with gzip if they are at least as large as the min size.
+     * <br/>
+     * The server should accept gzip encoded request bodies.
+     * @param minSize min size of the body in bytes, negative to disable
+     * @return the requester
+     */
+    public Requester withPostCompression(int minSize){
+        this.postCompression = minSize;
+        return this;
+    }
+
+    /**
+     * Share the running identical requests of {@link #getString()}.
+     * <br/>
+     * Requests are identical if they have the same url, headers, transport, cache, timeouts and retry policy.
+     * Enabled by default.
+     * @param coalesce true to share
+     * @return the requester
+     */
+    public Requester withCoalescing(boolean coalesce){
+        this.coalesce = coalesce;
+        return this;
+    }
+
+    private TransportRequest request(String method){
+        return TransportRequest.create(method, getUrl())
+                .withHeaders(headers)
+                .withConnectTimeout(connectTimeout)
+                .withReadTimeout(readTimeout)
+                .withRetryPolicy(retryPolicy)
+                .withCompression(true);
+    }
+
     /**
      * Get content as a string.
      * @return the content
      */
     public String getString() throws NoConnectionException, HttpException {
-        return Network.urlToString(getUrl(), headers);
+        if (coalesce)
+            return COALESCER.get(key("GET"), this::fetchString);
+
+        return fetchString();
+    }
+
+    private String fetchString() throws NoConnectionException, HttpException {
+        if (cache != null)
+            return Network.inputStreamToString(getStream());
+
+        return Network.urlToString(transport, request("GET"));
+    }
+
+    /**
+     * @return key of the identical requests, the transport, the cache and the retry policy are compared by identity
+     */
+    private Object key(String method){
+        var key = new StringBuilder(method).append(' ').append(getUrl());
+        headers.stream()
+                .map(x -> x.key().toLowerCase(Locale.ROOT) + ": " + x.value())
+                .sorted()
+                .forEach(x -> key.append('\n').append(x));
+
+        return Arrays.asList(key.toString(), transport, cache, connectTimeout, readTimeout, retryPolicy);
+    }
+
+    /**
+     * Get content as a UTF-8 reader to parse it while it is received.
+     * @return the reader, null if not found
+     */
+    public Reader getReader() throws NoConnectionException, HttpException {
+        InputStream stream = getStream();
+        return stream == null ? null : new InputStreamReader(stream, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Get content as a JSON reader to parse it while it is received.
+     * @return the reader, null if not found
+     */
+    public JsonReader getJsonReader() throws NoConnectionException, HttpException {
+        Reader reader = getReader();
+        return reader == null ? null : new JsonReader(reader);
     }
 
     /**
@@ -101,7 +336,10 @@ public class Requester {
      * @return the content
      */
     public InputStream getStream() throws NoConnectionException, HttpException {
-        return Network.urlToStream(getUrl(), headers);
+        if (cache != null)
+            return cache.get(transport, request("GET"));
+
+        return Network.urlToStream(transport, request("GET"));
     }
 
     /**
@@ -110,7 +348,155 @@ public class Requester {
      * @return the response
      */
     public String post(String content) throws NoConnectionException {
-        return Network.post(getUrl(), content, headers);
+        var request = request("POST").withBody(content);
+        if (postCompression >= 0)
+            request.gzipBody(postCompression);
+
+        return Network.post(transport, request);
+    }
+
+    /**
+     * Post the streamed body.
+     * @param body the body
+     * @return the response or the error response as a stream
+     */
+    public InputStream post(RequestBody body) throws NoConnectionException {
+        return send("POST", body);
+    }
+
+    /**
+     * Put the streamed body.
+     * @param body the body
+     * @return the response or the error response as a stream
+     */
+    public InputStream put(RequestBody body) throws NoConnectionException {
+        return send("PUT", body);
+    }
+
+    /**
+     * Patch with the streamed body.
+     * <br/>
+     * The legacy transport sends it as a POST with the <i>X-HTTP-Method-Override</i> header.
+     * @param body the body
+     * @return the response or the error response as a stream
+     */
+    public InputStream patch(RequestBody body) throws NoConnectionException {
+        return send("PATCH", body);
+    }
+
+    private InputStream send(String method, RequestBody body) throws NoConnectionException {
+        return Network.postStream(transport, request(method).withBody(body));
+    }
+
+    /**
+     * Get content as a string asynchronously.
+     * @return future of the content
+     */
+    public CompletableFuture<String> getStringAsync(){
+        return async(this::getString);
+    }
+
+    /**
+     * Get content as an input stream asynchronously.
+     * @return future of the content
+     */
+    public CompletableFuture<InputStream> getStreamAsync(){
+        return async(this::getStream);
+    }
+
+    /**
+     * Get content as an object asynchronously.
+     * @param clazz class of the object
+     * @return future of the object
+     */
+    public <T> CompletableFuture<T> getObjectAsync(Class<T> clazz){
+        return getObjectAsync(clazz, null);
+    }
+
+    /**
+     * Get content as an object asynchronously.
+     * @param clazz class of the object
+     * @param gson gson to deserialize, null for the default one
+     * @return future of the object
+     */
+    public <T> CompletableFuture<T> getObjectAsync(Class<T> clazz, Gson gson){
+        return async(() -> {
+            String str = getString();
+            return str == null ? null : (gson != null ? gson : GSON).fromJson(str, clazz);
+        });
+    }
+
+    /**
+     * Post asynchronously.
+     * @param content content body
+     * @return future of the response
+     */
+    public CompletableFuture<String> postAsync(String content){
+        return async(() -> post(content));
+    }
+
+    private <T> CompletableFuture<T> async(Call<T> call){
+        final CancellableToken<?> token = this.token;
+        var future = new CompletableFuture<T>();
+        var running = new Running();
+
+        if (token != null){
+            if (token.stopRequested()){
+                future.completeExceptionally(new StopException());
+                return future;
+            }
+
+            var watch = WATCH.scheduleWithFixedDelay(() -> {
+                if (token.stopRequested())
+                    future.completeExceptionally(new StopException());
+            }, STOP_POLL, STOP_POLL, TimeUnit.MILLISECONDS);
+
+            future.whenComplete((r, e) -> {
+                watch.cancel(false);
+                if (e instanceof CancellationException)
+                    token.stop();
+            });
+        }
+
+        future.whenComplete((r, e) -> {
+            if (e != null)
+                running.abort();
+        });
+
+        executor.execute(() -> {
+            if (future.isDone() || !running.begin())
+                return;
+
+            try{
+                T result = call.call();
+                if (token != null && token.stopRequested()){
+                    discard(result);
+                    future.completeExceptionally(new StopException());
+                }
+                else if (!future.complete(result))
+                    discard(result);
+            }
+            catch (Exception e){
+                future.completeExceptionally(e);
+            }
+            finally {
+                running.end();
+            }
+        });
+
+        return future;
+    }
+
+    private static void discard(Object result){
+        if (!(result instanceof Closeable))
+            return;
+
+        try{
+            ((Closeable) result).close();
+        }
+        catch (IOException ignored){
+
+        }
     }
 
     /**
@@ -1,9 +1,26 @@
 package com.laeben.core.network.requester;
 
 
+import com.laeben.core.network.HttpCache;
+import com.laeben.core.network.entity.RetryPolicy;
+import com.laeben.core.network.transport.Transport;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+
 public class RequesterFactory{
     private final String baseUrl;
     private boolean http;
+
+    private Transport transport;
+    private Duration connectTimeout;
+    private Duration readTimeout;
+    private Executor executor;
+    private HttpCache cache;
+    private RetryPolicy retryPolicy;
+    private int postCompression = -1;
+    private boolean coalesce = true;
+
     public RequesterFactory(String baseUrl){
         if (baseUrl.startsWith("http://"))
             http = true;
@@ -11,11 +28,107 @@ public class RequesterFactory{
         this.baseUrl = baseUrl.replace("https://", "").replace("http://", "");
     }
 
+    /**
+     * Set the transport of the created requesters.
+     * @param transport the transport, null for the default one of {@link com.laeben.core.network.Network}
+     * @return the factory
+     */
+    public RequesterFactory withTransport(Transport transport){
+        this.transport = transport;
+        return this;
+    }
+
+    /**
+     * Set the connect timeout of the created requesters.
+     * @param timeout the timeout, null for no timeout
+     * @return the factory
+     */
+    public RequesterFactory withConnectTimeout(Duration timeout){
+        this.connectTimeout = timeout;
+        return this;
+    }
+
+    /**
+     * Set the read timeout of the created requesters.
+     * @param timeout the timeout, null for no timeout
+     * @return the factory
+     */
+    public RequesterFactory withReadTimeout(Duration timeout){
+        this.readTimeout = timeout;
+        return this;
+    }
+
+    /**
+     * Set the executor of the async requests of the created requesters.
+     * @param executor the executor, null for the default one
+     * @return the factory
+     */
+    public RequesterFactory withExecutor(Executor executor){
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * @return the executor of the async requests
+     */
+    public Executor getExecutor(){
+        return executor != null ? executor : Requester.getDefaultExecutor();
+    }
+
+    /**
+     * Serve the GET requests of the created requesters through the cache.
+     * @param cache the cache, null for no cache
+     * @return the factory
+     */
+    public RequesterFactory withCache(HttpCache cache){
+        this.cache = cache;
+        return this;
+    }
+
+    /**
+     * Retry the failed requests of the created requesters with the policy.
+     * @param policy the policy, null for no retry
+     * @return the factory
+     */
+    public RequesterFactory withRetryPolicy(RetryPolicy policy){
+        this.retryPolicy = policy;
+        return this;
+    }
+
+    /**
+     * Compress the post bodies of the created requesters with gzip if they are at least as large as the min size.
+     * @param minSize min size of the body in bytes, negative to disable
+     * @return the factory
+     */
+    public RequesterFactory withPostCompression(int minSize){
+        this.postCompression = minSize;
+        return this;
+    }
+
+    /**
+     * Share the running identical GET requests of the created requesters.
+     * @param coalesce true to share, enabled by default
+     * @return the factory
+     */
+    public RequesterFactory withCoalescing(boolean coalesce){
+        this.coalesce = coalesce;
+        return this;
+    }
+
     /**
      * Create a new requester with given base url.
      * @return new requester
      */
     public Requester create(){
-        return http ? new Requester(baseUrl).http() : new Requester(baseUrl);
+        var requester = http ? new Requester(baseUrl).http() : new Requester(baseUrl);
+        return requester
+                .withTransport(transport)
+                .withConnectTimeout(connectTimeout)
+                .withReadTimeout(readTimeout)
+                .withExecutor(executor)
+                .withCache(cache)
+                .withRetryPolicy(retryPolicy)
+                .withPostCompression(postCompression)
+                .withCoalescing(coalesce);
     }
 }
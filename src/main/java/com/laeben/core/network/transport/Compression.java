@@ -0,0 +1,179 @@
+package com.laeben.core.network.transport;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Content encoding of the requests and the responses.
+ */
+public final class Compression {
+    public static final String ACCEPT_ENCODING = "gzip, deflate";
+
+    private Compression(){
+
+    }
+
+    /**
+     * Response with a decoded body.
+     * <br/>
+     * <i>Content-Encoding</i> and <i>Content-Length</i> headers of the encoded body are hidden.
+     */
+    private static class DecodedResponse implements TransportResponse {
+        private final TransportResponse response;
+        private final String encoding;
+        private InputStream body;
+
+        private DecodedResponse(TransportResponse response, String encoding){
+            this.response = response;
+            this.encoding = encoding;
+        }
+
+        @Override
+        public int getStatusCode(){
+            return response.getStatusCode();
+        }
+
+        @Override
+        public String getHeader(String name){
+            if (isHidden(name))
+                return null;
+
+            return response.getHeader(name);
+        }
+
+        @Override
+        public Map<String, List<String>> getHeaders(){
+            return response.getHeaders().entrySet().stream()
+                    .filter(x -> !isHidden(x.getKey()))
+                    .collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, Map.Entry::getValue));
+        }
+
+        @Override
+        public synchronized InputStream getBody(){
+            if (body == null)
+                body = new DecodingInputStream(response.getBody(), encoding);
+
+            return body;
+        }
+
+        @Override
+        public void close() throws IOException {
+            getBody().close();
+            response.close();
+        }
+
+        private static boolean isHidden(String name){
+            return name.equalsIgnoreCase("Content-Encoding") || name.equalsIgnoreCase("Content-Length");
+        }
+    }
+
+    /**
+     * Stream creating the decoder on the first read, so empty bodies of the encoded responses are valid.
+     */
+    private static class DecodingInputStream extends InputStream {
+        private final InputStream source;
+        private final String encoding;
+        private InputStream decoder;
+
+        private DecodingInputStream(InputStream source, String encoding){
+            this.source = source;
+            this.encoding = encoding;
+        }
+
+        private InputStream decoder() throws IOException {
+            if (decoder != null)
+                return decoder;
+
+            var stream = new PushbackInputStream(source, 2);
+            int first = stream.read();
+            int second = first == -1 ? -1 : stream.read();
+            if (first == -1){
+                decoder = InputStream.nullInputStream();
+                return decoder;
+            }
+
+            if (second != -1)
+                stream.unread(second);
+            stream.unread(first);
+
+            if (encoding.equals("deflate")){
+                // deflate should be zlib wrapped but some servers send the raw one
+                boolean zlib = (first & 0x0F) == 8 && second != -1 && ((first << 8) | second) % 31 == 0;
+                decoder = new InflaterInputStream(stream, new Inflater(!zlib));
+            }
+            else
+                decoder = new GZIPInputStream(stream, 8192);
+
+            return decoder;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return decoder().read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return decoder().read(b, off, len);
+        }
+
+        @Override
+        public int available() throws IOException {
+            return decoder == null ? 0 : decoder.available();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (decoder != null)
+                decoder.close();
+            source.close();
+        }
+    }
+
+    /**
+     * Decode the body of the response if it is encoded with gzip or deflate.
+     * @param response the response
+     * @return the decoded response, or the response itself if it is not encoded
+     */
+    public static TransportResponse decode(TransportResponse response){
+        String encoding = response.getHeader("Content-Encoding");
+        if (encoding == null)
+            return response;
+
+        encoding = encoding.trim().toLowerCase(Locale.US);
+        if (encoding.equals("x-gzip"))
+            encoding = "gzip";
+        if (!encoding.equals("gzip") && !encoding.equals("deflate"))
+            return response;
+
+        return new DecodedResponse(response, encoding);
+    }
+
+    /**
+     * Compress the bytes with gzip.
+     * @param data the bytes
+     * @return the compressed bytes
+     */
+    public static byte[] gzip(byte[] data){
+        var out = new ByteArrayOutputStream(Math.max(32, data.length / 4));
+        try (var gzip = new GZIPOutputStream(out)){
+            gzip.write(data);
+        }
+        catch (IOException e){
+            // not possible for an in memory stream
+            throw new IllegalStateException(e);
+        }
+
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,208 @@
+package com.laeben.core.network.transport;
+
+import com.laeben.core.entity.RequestParameter;
+import com.laeben.core.util.BandwidthLimiter;
+
+import javax.net.ssl.SSLContext;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.*;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.channels.UnresolvedAddressException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Transport over the shared {@link HttpClient}s.
+ * <br/>
+ * Connections are kept alive and multiplexed with HTTP/2 when the server supports it.
+ * One client is shared by all requests with the same connect timeout.
+ * The read timeout limits the time until the response headers are received.
+ */
+public class HttpClientTransport implements Transport {
+    private static final Set<String> RESTRICTED_HEADERS = Set.of(
+            "connection", "content-length", "date", "expect", "from", "host", "origin", "referer", "upgrade", "via", "warning"
+    );
+    private static final Duration NO_TIMEOUT = Duration.ZERO;
+
+    private static final Map<Duration, HttpClient> clients = new ConcurrentHashMap<>();
+    private static volatile SSLContext sslContext;
+
+    private static class Response implements TransportResponse {
+        private final HttpResponse<InputStream> response;
+
+        private Response(HttpResponse<InputStream> response){
+            this.response = response;
+        }
+
+        @Override
+        public int getStatusCode(){
+            return response.statusCode();
+        }
+
+        @Override
+        public String getHeader(String name){
+            return response.headers().firstValue(name).orElse(null);
+        }
+
+        @Override
+        public Map<String, List<String>> getHeaders(){
+            return response.headers().map();
+        }
+
+        @Override
+        public InputStream getBody(){
+            return response.body();
+        }
+
+        @Override
+        public void close() throws IOException {
+            response.body().close();
+        }
+    }
+
+    /**
+     * Use the SSL context for the new connections of all clients.
+     * @param context the context
+     */
+    public static void useSSLContext(SSLContext context){
+        sslContext = context;
+        clients.clear();
+    }
+
+    private static HttpClient client(Duration connectTimeout){
+        return clients.computeIfAbsent(connectTimeout == null ? NO_TIMEOUT : connectTimeout, x -> {
+            var builder = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_2)
+                    .followRedirects(HttpClient.Redirect.NORMAL);
+            if (!x.isZero())
+                builder.connectTimeout(x);
+            if (sslContext != null)
+                builder.sslContext(sslContext);
+
+            return builder.build();
+        });
+    }
+
+    @Override
+    public TransportResponse send(TransportRequest request) throws IOException {
+        HttpRequest.Builder builder;
+        try{
+            builder = HttpRequest.newBuilder(toURI(request.getUrl()));
+        }
+        catch (IllegalArgumentException e){
+            throw new MalformedURLException(request.getUrl());
+        }
+
+        if (request.getReadTimeout() != null)
+            builder.timeout(request.getReadTimeout());
+        if (request.isHttp1Preferred())
+            builder.version(HttpClient.Version.HTTP_1_1);
+
+        for (RequestParameter h : request.getHeaders()){
+            if (RESTRICTED_HEADERS.contains(h.key().toLowerCase(Locale.US)))
+                continue;
+            builder.header(h.key(), h.value().toString());
+        }
+
+        byte[] body = request.getBody();
+        RequestBody streamingBody = request.getStreamingBody();
+        // body streams opened by the client, it does not close them if the request ends before the body
+        var opened = new ConcurrentLinkedQueue<InputStream>();
+        HttpRequest.BodyPublisher publisher;
+        if (streamingBody != null)
+            publisher = publisher(streamingBody, request.getLimiters(), opened);
+        else if (body == null)
+            publisher = HttpRequest.BodyPublishers.noBody();
+        else if (request.getLimiters().isEmpty())
+            publisher = HttpRequest.BodyPublishers.ofByteArray(body);
+        else
+            publisher = HttpRequest.BodyPublishers.fromPublisher(HttpRequest.BodyPublishers.ofInputStream(
+                    () -> BandwidthLimiter.limit(new ByteArrayInputStream(body), request.getLimiters())), body.length);
+        builder.method(request.getMethod(), publisher);
+
+        try{
+            return new Response(client(request.getConnectTimeout()).send(builder.build(), HttpResponse.BodyHandlers.ofInputStream()));
+        }
+        catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+        catch (ConnectException e){
+            for (Throwable t = e.getCause(); t != null; t = t.getCause()){
+                if (t instanceof UnresolvedAddressException)
+                    throw new UnknownHostException(request.getUrl());
+            }
+            throw e;
+        }
+        finally {
+            for (InputStream stream : opened){
+                try{
+                    stream.close();
+                }
+                catch (IOException ignored){
+
+                }
+            }
+        }
+    }
+
+    /**
+     * Stream the body in fixed length mode if the length is known, else in chunked mode.
+     * @param opened receives the opened body streams to close them after the request
+     */
+    private static HttpRequest.BodyPublisher publisher(RequestBody body, List<BandwidthLimiter> limiters, Queue<InputStream> opened){
+        var publisher = HttpRequest.BodyPublishers.ofInputStream(() -> {
+            try{
+                var stream = BandwidthLimiter.limit(body.open(), limiters);
+                opened.add(stream);
+                return stream;
+            }
+            catch (IOException e){
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        if (body.getLength() == 0)
+            return HttpRequest.BodyPublishers.noBody();
+
+        return body.getLength() > 0 ? HttpRequest.BodyPublishers.fromPublisher(publisher, body.getLength()) : publisher;
+    }
+
+    /**
+     * Convert the url to the uri by escaping the characters that {@link HttpURLConnection} sends as they are.
+     * @param url the url
+     * @return the uri
+     */
+    private static URI toURI(String url){
+        try{
+            return new URI(url);
+        }
+        catch (URISyntaxException ignored){
+
+        }
+
+        var builder = new StringBuilder(url.length() + 16);
+        for (byte b : url.getBytes(StandardCharsets.UTF_8)){
+            int c = b & 0xFF;
+            if (c > 32 && c < 127 && "\"<>\\^`{|}".indexOf(c) == -1)
+                builder.append((char) c);
+            else
+                builder.append('%').append(Character.toUpperCase(Character.forDigit(c >> 4, 16))).append(Character.toUpperCase(Character.forDigit(c & 15, 16)));
+        }
+
+        return URI.create(builder.toString());
+    }
+}
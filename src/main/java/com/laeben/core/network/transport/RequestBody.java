@@ -0,0 +1,205 @@
+package com.laeben.core.network.transport;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+import com.google.gson.stream.JsonWriter;
+import com.laeben.core.entity.Path;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Request body written to the connection while the request is sent, without being held in memory.
+ * <br/>
+ * Bodies of unknown length are sent in chunked streaming mode, the others in fixed length streaming mode.
+ */
+public abstract class RequestBody {
+    private static final int PIPE_SIZE = 16384;
+    private static final Gson GSON = new Gson();
+    private static final ExecutorService WRITERS = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "laeben-body-writer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final String contentType;
+    private final long length;
+
+    protected RequestBody(String contentType, long length){
+        this.contentType = contentType;
+        this.length = length;
+    }
+
+    /**
+     * Create a body read from the stream.
+     * <br/>
+     * The body can be sent once, so the request is not retried.
+     * @param stream the stream, closed after the body is sent
+     * @param length length of the stream in bytes, negative if unknown
+     * @param contentType content type, null for <i>application/octet-stream</i>
+     * @return the body
+     */
+    public static RequestBody of(InputStream stream, long length, String contentType){
+        return new RequestBody(contentType != null ? contentType : "application/octet-stream", length){
+            private boolean opened;
+
+            @Override
+            public synchronized InputStream open() throws IOException {
+                if (opened)
+                    throw new IOException("Body stream is already sent.");
+                opened = true;
+                return stream;
+            }
+
+            @Override
+            public boolean isRepeatable(){
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Create a body read from the file.
+     * @param path the file
+     * @param contentType content type, null for <i>application/octet-stream</i>
+     * @return the body
+     */
+    public static RequestBody of(Path path, String contentType) throws IOException {
+        var file = path.toFile().toPath();
+        return new RequestBody(contentType != null ? contentType : "application/octet-stream", Files.size(file)){
+            @Override
+            public InputStream open() throws IOException {
+                return Files.newInputStream(file);
+            }
+        };
+    }
+
+    /**
+     * Create a UTF-8 JSON body serialized while it is sent.
+     * @param object the object
+     * @param gson gson to serialize, null for the default one
+     * @return the body
+     */
+    public static RequestBody json(Object object, Gson gson){
+        final Gson g = gson != null ? gson : GSON;
+        return new RequestBody("application/json; charset=utf-8", -1){
+            @Override
+            public void writeTo(OutputStream out) throws IOException {
+                JsonWriter writer = g.newJsonWriter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), PIPE_SIZE));
+                try{
+                    g.toJson(object, object == null ? Object.class : object.getClass(), writer);
+                }
+                catch (JsonIOException e){
+                    throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e);
+                }
+                catch (RuntimeException e){
+                    throw new IOException(e);
+                }
+                writer.flush();
+            }
+
+            @Override
+            public InputStream open() throws IOException {
+                return pipe(this);
+            }
+        };
+    }
+
+    /**
+     * Open the body to read it.
+     * @return the body stream, should be closed after use
+     */
+    public abstract InputStream open() throws IOException;
+
+    /**
+     * Write the body to the stream.
+     * @param out the stream, not closed
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        try (InputStream in = open()){
+            in.transferTo(out);
+        }
+    }
+
+    /**
+     * @return true if the body can be sent again, for example by a retry
+     */
+    public boolean isRepeatable(){
+        return true;
+    }
+
+    /**
+     * @return length of the body in bytes, negative if unknown
+     */
+    public long getLength(){
+        return length;
+    }
+
+    public String getContentType(){
+        return contentType;
+    }
+
+    /**
+     * Pipe throwing the failure of the writer instead of ending the stream early.
+     * <br/>
+     * Closing the pipe before the end fails the blocked writer, so it does not wait for a reader forever.
+     */
+    private static class Pipe extends PipedInputStream {
+        private volatile IOException error;
+
+        private Pipe(){
+            super(PIPE_SIZE);
+        }
+
+        @Override
+        public synchronized int read() throws IOException {
+            int b = super.read();
+            if (b == -1 && error != null)
+                throw error;
+            return b;
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read == -1 && error != null)
+                throw error;
+            return read;
+        }
+    }
+
+    /**
+     * Read the body written by {@link #writeTo(OutputStream)} on a writer thread.
+     * <br/>
+     * The stream should be closed even if it is not read to the end, to release the writer.
+     */
+    private static InputStream pipe(RequestBody body) throws IOException {
+        var in = new Pipe();
+        var out = new PipedOutputStream(in);
+
+        WRITERS.execute(() -> {
+            try{
+                body.writeTo(out);
+            }
+            catch (IOException e){
+                in.error = e;
+            }
+            catch (RuntimeException e){
+                in.error = new IOException(e);
+            }
+            finally {
+                try{
+                    out.close();
+                }
+                catch (IOException ignored){
+
+                }
+            }
+        });
+
+        return in;
+    }
+}
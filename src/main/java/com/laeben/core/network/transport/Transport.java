@@ -0,0 +1,17 @@
+package com.laeben.core.network.transport;
+
+import java.io.IOException;
+
+/**
+ * HTTP transport used by {@link com.laeben.core.network.Network} and the requesters.
+ */
+public interface Transport {
+    /**
+     * Send the request and receive the response headers.
+     * <br/>
+     * Responses with error status codes are returned too, their body is the error stream.
+     * @param request the request
+     * @return the response, should be closed after use
+     */
+    TransportResponse send(TransportRequest request) throws IOException;
+}
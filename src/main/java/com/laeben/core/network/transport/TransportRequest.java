@@ -0,0 +1,256 @@
+package com.laeben.core.network.transport;
+
+import com.laeben.core.entity.RequestParameter;
+import com.laeben.core.network.entity.RetryPolicy;
+import com.laeben.core.util.BandwidthLimiter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Request sent by a {@link Transport}.
+ */
+public class TransportRequest {
+    private final String method;
+    private final String url;
+    private final List<RequestParameter> headers;
+
+    private byte[] body;
+    private RequestBody streamingBody;
+    private Duration connectTimeout;
+    private Duration readTimeout;
+    private boolean http1;
+    private List<BandwidthLimiter> limiters = List.of();
+    private RetryPolicy retryPolicy;
+    private boolean compression;
+
+    private TransportRequest(String method, String url){
+        this.method = method;
+        this.url = url;
+        this.headers = new ArrayList<>();
+    }
+
+    /**
+     * Create a new request.
+     * @param method http method
+     * @param url destination url
+     * @return new request
+     */
+    public static TransportRequest create(String method, String url){
+        return new TransportRequest(method, url);
+    }
+
+    public static TransportRequest get(String url){
+        return new TransportRequest("GET", url);
+    }
+
+    public static TransportRequest head(String url){
+        return new TransportRequest("HEAD", url);
+    }
+
+    public static TransportRequest post(String url, String body){
+        return new TransportRequest("POST", url).withBody(body);
+    }
+
+    public TransportRequest withHeader(RequestParameter h){
+        headers.add(h);
+        return this;
+    }
+
+    public TransportRequest withHeaders(List<RequestParameter> hs){
+        if (hs != null)
+            headers.addAll(hs);
+        return this;
+    }
+
+    /**
+     * Set the body as UTF-8 text.
+     * @param body the body
+     * @return the request
+     */
+    public TransportRequest withBody(String body){
+        return withBody(body == null ? null : body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public TransportRequest withBody(byte[] body){
+        this.body = body;
+        this.streamingBody = null;
+        return this;
+    }
+
+    /**
+     * Set the body streamed to the connection.
+     * <br/>
+     * The <i>Content-Type</i> header of the body is added if the request has none.
+     * @param body the body
+     * @return the request
+     */
+    public TransportRequest withBody(RequestBody body){
+        this.body = null;
+        this.streamingBody = body;
+        if (body != null && getHeader("Content-Type") == null)
+            headers.add(RequestParameter.contentType(body.getContentType()));
+        return this;
+    }
+
+    /**
+     * @param timeout max time to establish the connection, null for no timeout
+     * @return the request
+     */
+    public TransportRequest withConnectTimeout(Duration timeout){
+        this.connectTimeout = timeout;
+        return this;
+    }
+
+    /**
+     * @param timeout max time to wait for the response, null for no timeout
+     * @return the request
+     */
+    public TransportRequest withReadTimeout(Duration timeout){
+        this.readTimeout = timeout;
+        return this;
+    }
+
+    /**
+     * Accept gzip and deflate encoded responses when the request is sent through
+     * {@link com.laeben.core.network.Network#send(Transport, TransportRequest)}, which decodes them.
+     * <br/>
+     * Should not be used for the range requests, the ranges would be of the encoded content.
+     * @param compression accept encoded responses
+     * @return the request
+     */
+    public TransportRequest withCompression(boolean compression){
+        this.compression = compression;
+        return this;
+    }
+
+    /**
+     * Compress the body with gzip if it is at least as large as the min size.
+     * @param minSize min size of the body in bytes
+     * @return the request
+     */
+    public TransportRequest gzipBody(int minSize){
+        if (body == null || body.length < minSize || getHeader("Content-Encoding") != null)
+            return this;
+
+        body = Compression.gzip(body);
+        return withHeader(new RequestParameter("Content-Encoding", "gzip"));
+    }
+
+    /**
+     * Prefer a dedicated HTTP/1.1 connection over a multiplexed HTTP/2 stream.
+     * <br/>
+     * Used by parallel range downloads to spread the ranges over separate connections.
+     * @return the request
+     */
+    public TransportRequest preferHttp1(){
+        this.http1 = true;
+        return this;
+    }
+
+    /**
+     * Limit the upload of the body.
+     * @param limiters the limiters
+     * @return the request
+     */
+    public TransportRequest withLimiters(List<BandwidthLimiter> limiters){
+        this.limiters = limiters == null ? List.of() : List.copyOf(limiters);
+        return this;
+    }
+
+    /**
+     * Retry the request with the policy when it is sent through {@link com.laeben.core.network.Network#send(Transport, TransportRequest)}.
+     * @param policy the policy, null for no retry
+     * @return the request
+     */
+    public TransportRequest withRetryPolicy(RetryPolicy policy){
+        this.retryPolicy = policy;
+        return this;
+    }
+
+    /**
+     * @return new request with the same method, url, headers, body and options
+     */
+    public TransportRequest copy(){
+        var r = new TransportRequest(method, url).withHeaders(headers).withBody(body);
+        r.streamingBody = streamingBody;
+        r.connectTimeout = connectTimeout;
+        r.readTimeout = readTimeout;
+        r.http1 = http1;
+        r.limiters = limiters;
+        r.retryPolicy = retryPolicy;
+        r.compression = compression;
+        return r;
+    }
+
+    public String getMethod(){
+        return method;
+    }
+
+    public String getUrl(){
+        return url;
+    }
+
+    public List<RequestParameter> getHeaders(){
+        return Collections.unmodifiableList(headers);
+    }
+
+    /**
+     * Get the first value of the header.
+     * @param name case-insensitive header name
+     * @return the value, null if not exists
+     */
+    public String getHeader(String name){
+        for (RequestParameter h : headers){
+            if (h.key().equalsIgnoreCase(name))
+                return h.value() == null ? null : h.value().toString();
+        }
+
+        return null;
+    }
+
+    public byte[] getBody(){
+        return body;
+    }
+
+    /**
+     * @return the streamed body, null if none
+     */
+    public RequestBody getStreamingBody(){
+        return streamingBody;
+    }
+
+    /**
+     * @return true if the body can be sent again
+     */
+    public boolean isRepeatable(){
+        return streamingBody == null || streamingBody.isRepeatable();
+    }
+
+    public Duration getConnectTimeout(){
+        return connectTimeout;
+    }
+
+    public Duration getReadTimeout(){
+        return readTimeout;
+    }
+
+    public boolean isHttp1Preferred(){
+        return http1;
+    }
+
+    public List<BandwidthLimiter> getLimiters(){
+        return limiters;
+    }
+
+    public RetryPolicy getRetryPolicy(){
+        return retryPolicy;
+    }
+
+    public boolean isCompressionAccepted(){
+        return compression;
+    }
+}
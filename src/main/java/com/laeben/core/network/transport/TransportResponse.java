@@ -0,0 +1,67 @@
+package com.laeben.core.network.transport;
+
+import java.io.Closeable;
+import java.io.InputStream;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Response of a {@link Transport}.
+ */
+public interface TransportResponse extends Closeable {
+    int getStatusCode();
+
+    /**
+     * Get the first value of the header.
+     * @param name case-insensitive header name
+     * @return the value, null if not exists
+     */
+    String getHeader(String name);
+
+    Map<String, List<String>> getHeaders();
+
+    /**
+     * @return the body or the error stream, never null
+     */
+    InputStream getBody();
+
+    /**
+     * @return content length, -1 if unknown
+     */
+    default long getContentLength(){
+        String length = getHeader("Content-Length");
+        if (length == null)
+            return -1;
+
+        try{
+            return Long.parseLong(length.trim());
+        }
+        catch (NumberFormatException e){
+            return -1;
+        }
+    }
+
+    /**
+     * @return last modified date in millis, 0 if unknown
+     */
+    default long getLastModified(){
+        String date = getHeader("Last-Modified");
+        if (date == null)
+            return 0;
+
+        try{
+            return ZonedDateTime.parse(date, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+        }
+        catch (DateTimeParseException e){
+            return 0;
+        }
+    }
+
+    default boolean isSuccessful(){
+        int code = getStatusCode();
+        return code >= 200 && code < 300;
+    }
+}
@@ -0,0 +1,113 @@
+package com.laeben.core.network.transport;
+
+import com.laeben.core.entity.RequestParameter;
+import com.laeben.core.util.BandwidthLimiter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Legacy transport opening a {@link HttpURLConnection} for each request.
+ */
+public class UrlConnectionTransport implements Transport {
+    private static final int CHUNK_SIZE = 16384;
+
+    private static class Response implements TransportResponse {
+        private final HttpURLConnection conn;
+        private final int code;
+        private InputStream body;
+
+        private Response(HttpURLConnection conn, int code){
+            this.conn = conn;
+            this.code = code;
+        }
+
+        @Override
+        public int getStatusCode(){
+            return code;
+        }
+
+        @Override
+        public String getHeader(String name){
+            return conn.getHeaderField(name);
+        }
+
+        @Override
+        public Map<String, List<String>> getHeaders(){
+            return conn.getHeaderFields().entrySet().stream()
+                    .filter(x -> x.getKey() != null)
+                    .collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, Map.Entry::getValue));
+        }
+
+        @Override
+        public synchronized InputStream getBody(){
+            if (body != null)
+                return body;
+
+            try{
+                body = code >= 400 ? conn.getErrorStream() : conn.getInputStream();
+            }
+            catch (IOException ignored){
+
+            }
+            if (body == null)
+                body = InputStream.nullInputStream();
+
+            return body;
+        }
+
+        @Override
+        public void close() throws IOException {
+            getBody().close();
+        }
+    }
+
+    @Override
+    public TransportResponse send(TransportRequest request) throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) new URL(request.getUrl()).openConnection();
+        if (request.getConnectTimeout() != null)
+            conn.setConnectTimeout((int) request.getConnectTimeout().toMillis());
+        if (request.getReadTimeout() != null)
+            conn.setReadTimeout((int) request.getReadTimeout().toMillis());
+
+        if (request.getMethod().equals("PATCH")){
+            // not supported by the connection
+            conn.setRequestMethod("POST");
+            conn.setRequestProperty("X-HTTP-Method-Override", "PATCH");
+        }
+        else
+            conn.setRequestMethod(request.getMethod());
+        for (RequestParameter h : request.getHeaders())
+            conn.addRequestProperty(h.key(), h.value().toString());
+
+        byte[] body = request.getBody();
+        if (body != null){
+            conn.setDoOutput(true);
+            conn.setFixedLengthStreamingMode(body.length);
+            try (OutputStream stream = BandwidthLimiter.limit(conn.getOutputStream(), request.getLimiters())){
+                for (int i = 0; i < body.length; i += CHUNK_SIZE)
+                    stream.write(body, i, Math.min(CHUNK_SIZE, body.length - i));
+            }
+        }
+
+        RequestBody streamingBody = request.getStreamingBody();
+        if (streamingBody != null){
+            conn.setDoOutput(true);
+            if (streamingBody.getLength() >= 0)
+                conn.setFixedLengthStreamingMode(streamingBody.getLength());
+            else
+                conn.setChunkedStreamingMode(CHUNK_SIZE);
+            try (OutputStream stream = BandwidthLimiter.limit(conn.getOutputStream(), request.getLimiters())){
+                streamingBody.writeTo(stream);
+            }
+        }
+
+        return new Response(conn, conn.getResponseCode());
+    }
+}
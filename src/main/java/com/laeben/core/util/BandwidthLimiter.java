@@ -0,0 +1,151 @@
+package com.laeben.core.util;
+
+import java.io.*;
+import java.util.List;
+
+/**
+ * Token bucket limiting the transferred bytes per second.
+ * <br/>
+ * The rate can be changed at any time, waiting transfers continue with the new rate.
+ * A transfer larger than the bucket is allowed when the bucket is not empty and the
+ * following ones wait until the debt is paid.
+ */
+public class BandwidthLimiter {
+    public static final long UNLIMITED = 0;
+
+    private long rate;
+    private double tokens;
+    private long last = System.nanoTime();
+
+    /**
+     * Create a new limiter.
+     * @param bytesPerSecond the rate, {@link #UNLIMITED} for no limit
+     */
+    public BandwidthLimiter(long bytesPerSecond){
+        this.rate = Math.max(UNLIMITED, bytesPerSecond);
+        this.tokens = this.rate;
+    }
+
+    /**
+     * Set the rate.
+     * @param bytesPerSecond the rate, {@link #UNLIMITED} for no limit
+     */
+    public synchronized void setRate(long bytesPerSecond){
+        refill(System.nanoTime());
+        rate = Math.max(UNLIMITED, bytesPerSecond);
+        if (rate == UNLIMITED || tokens > rate)
+            tokens = rate;
+        notifyAll();
+    }
+
+    public synchronized long getRate(){
+        return rate;
+    }
+
+    public synchronized boolean isLimited(){
+        return rate != UNLIMITED;
+    }
+
+    /**
+     * Take the bytes from the bucket, waiting until it has tokens.
+     * @param bytes transferred bytes
+     * @throws InterruptedIOException if the thread is interrupted while waiting
+     */
+    public synchronized void acquire(long bytes) throws InterruptedIOException {
+        while (rate != UNLIMITED){
+            long now = System.nanoTime();
+            refill(now);
+            if (tokens > 0){
+                tokens -= bytes;
+                return;
+            }
+
+            long nanos = (long) (-tokens * 1e9 / rate) + 1;
+            try{
+                wait(nanos / 1_000_000, (int) (nanos % 1_000_000));
+            }
+            catch (InterruptedException e){
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+        }
+    }
+
+    private void refill(long now){
+        if (rate != UNLIMITED)
+            tokens = Math.min(rate, tokens + (now - last) * rate / 1e9);
+        last = now;
+    }
+
+    /**
+     * Take the bytes from all limiters.
+     * @param limiters the limiters
+     * @param bytes transferred bytes
+     */
+    public static void acquire(List<BandwidthLimiter> limiters, long bytes) throws InterruptedIOException {
+        for (BandwidthLimiter l : limiters)
+            l.acquire(bytes);
+    }
+
+    /**
+     * Limit the reads of the stream.
+     * @param stream the stream
+     * @param limiters the limiters
+     * @return the limited stream
+     */
+    public static InputStream limit(InputStream stream, List<BandwidthLimiter> limiters){
+        if (stream == null || limiters.isEmpty())
+            return stream;
+
+        return new FilterInputStream(stream){
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b != -1)
+                    acquire(limiters, 1);
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int read = super.read(b, off, len);
+                if (read > 0)
+                    acquire(limiters, read);
+                return read;
+            }
+
+            @Override
+            public long skip(long n) throws IOException {
+                long skipped = super.skip(n);
+                if (skipped > 0)
+                    acquire(limiters, skipped);
+                return skipped;
+            }
+        };
+    }
+
+    /**
+     * Limit the writes of the stream.
+     * @param stream the stream
+     * @param limiters the limiters
+     * @return the limited stream
+     */
+    public static OutputStream limit(OutputStream stream, List<BandwidthLimiter> limiters){
+        if (stream == null || limiters.isEmpty())
+            return stream;
+
+        return new FilterOutputStream(stream){
+            @Override
+            public void write(int b) throws IOException {
+                acquire(limiters, 1);
+                out.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                acquire(limiters, len);
+                out.write(b, off, len);
+            }
+        };
+    }
+}
@@ -0,0 +1,144 @@
+package com.laeben.core.util;
+
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Applies the binary patches of bsdiff 4 (<i>BSDIFF40</i>).
+ * <br/>
+ * The patch and the new file are streamed, the old file is read at the positions of the patch,
+ * so none of them is held in memory.
+ */
+public final class BsPatch {
+    public static final String MAGIC = "BSDIFF40";
+
+    private static final int HEADER_SIZE = 32;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private BsPatch(){
+
+    }
+
+    /**
+     * Apply the patch to the old file.
+     * @param old the old file
+     * @param patch the patch
+     * @param out stream of the new file, not closed
+     * @return size of the new file
+     * @throws IOException if the patch is invalid or can not be read
+     */
+    public static long apply(Path old, Path patch, OutputStream out) throws IOException {
+        try (FileChannel oldChannel = FileChannel.open(old, StandardOpenOption.READ);
+             FileChannel ctrlChannel = FileChannel.open(patch, StandardOpenOption.READ);
+             FileChannel diffChannel = FileChannel.open(patch, StandardOpenOption.READ);
+             FileChannel extraChannel = FileChannel.open(patch, StandardOpenOption.READ)){
+
+            var header = ByteBuffer.allocate(HEADER_SIZE);
+            readFully(ctrlChannel, header, 0);
+            byte[] h = header.array();
+            if (!new String(h, 0, 8, StandardCharsets.US_ASCII).equals(MAGIC))
+                throw new IOException("Not a bsdiff patch.");
+
+            long ctrlLength = offtin(h, 8);
+            long diffLength = offtin(h, 16);
+            long newSize = offtin(h, 24);
+            if (ctrlLength < 0 || diffLength < 0 || newSize < 0 || HEADER_SIZE + ctrlLength + diffLength > ctrlChannel.size())
+                throw new IOException("Corrupt bsdiff patch header.");
+
+            try (var ctrl = block(ctrlChannel, HEADER_SIZE);
+                 var diff = block(diffChannel, HEADER_SIZE + ctrlLength);
+                 var extra = block(extraChannel, HEADER_SIZE + ctrlLength + diffLength)){
+                return apply(oldChannel, ctrl, diff, extra, newSize, out);
+            }
+        }
+    }
+
+    private static long apply(FileChannel old, InputStream ctrl, InputStream diff, InputStream extra, long newSize, OutputStream out) throws IOException {
+        long oldSize = old.size();
+        byte[] triple = new byte[24];
+        byte[] buffer = new byte[BUFFER_SIZE];
+        var oldBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+        long newPos = 0;
+        long oldPos = 0;
+        while (newPos < newSize){
+            readFully(ctrl, triple, 24);
+            long add = offtin(triple, 0);
+            long copy = offtin(triple, 8);
+            long seek = offtin(triple, 16);
+            if (add < 0 || copy < 0 || newPos + add + copy > newSize)
+                throw new IOException("Corrupt bsdiff patch control.");
+
+            // diff bytes added to the old bytes, old bytes out of the file are zero
+            for (long done = 0; done < add; ){
+                int n = (int) Math.min(BUFFER_SIZE, add - done);
+                readFully(diff, buffer, n);
+
+                long from = oldPos + done;
+                long start = Math.max(from, 0);
+                long end = Math.min(from + n, oldSize);
+                if (start < end){
+                    oldBuffer.clear().limit((int) (end - start));
+                    readFully(old, oldBuffer, start);
+                    byte[] o = oldBuffer.array();
+                    int offset = (int) (start - from);
+                    for (int i = 0; i < end - start; i++)
+                        buffer[offset + i] += o[i];
+                }
+
+                out.write(buffer, 0, n);
+                done += n;
+            }
+            newPos += add;
+            oldPos += add;
+
+            for (long done = 0; done < copy; ){
+                int n = (int) Math.min(BUFFER_SIZE, copy - done);
+                readFully(extra, buffer, n);
+                out.write(buffer, 0, n);
+                done += n;
+            }
+            newPos += copy;
+            oldPos += seek;
+        }
+
+        return newSize;
+    }
+
+    private static InputStream block(FileChannel channel, long position) throws IOException {
+        channel.position(position);
+        return new BZip2CompressorInputStream(new BufferedInputStream(Channels.newInputStream(channel), BUFFER_SIZE));
+    }
+
+    /**
+     * Read the sign and magnitude little endian number of bsdiff.
+     */
+    private static long offtin(byte[] b, int offset){
+        long y = b[offset + 7] & 0x7F;
+        for (int i = 6; i >= 0; i--)
+            y = (y << 8) | (b[offset + i] & 0xFF);
+
+        return (b[offset + 7] & 0x80) != 0 ? -y : y;
+    }
+
+    private static void readFully(InputStream stream, byte[] b, int length) throws IOException {
+        if (stream.readNBytes(b, 0, length) != length)
+            throw new EOFException("Truncated bsdiff patch.");
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()){
+            int read = channel.read(buffer, position);
+            if (read == -1)
+                throw new EOFException();
+            position += read;
+        }
+    }
+}
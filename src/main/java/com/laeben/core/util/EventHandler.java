@@ -3,7 +3,9 @@ package com.laeben.core.util;
 
 import com.laeben.core.LaebenApp;
 import com.laeben.core.entity.Register;
+import com.laeben.core.jfr.DispatchEvent;
 import com.laeben.core.util.events.BaseEvent;
+import com.laeben.core.util.events.KeyEvent;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -73,14 +75,27 @@ public class EventHandler<T extends BaseEvent> {
      * @param e the event
      */
     public void execute(T e){
-        handlers.keySet().forEach(x -> {
+        var event = new DispatchEvent();
+        event.begin();
+        int failures = 0;
+        for (var x : handlers.keySet()){
             Register<T> value = handlers.get(x);
             try{
                 executeReg(new ExReg<>(value, e));
             }
             catch (Exception f){
+                failures++;
                 LaebenApp.handleException(f);
             }
-        });
+        }
+
+        event.end();
+        if (event.shouldCommit()){
+            event.eventClass = e == null ? null : e.getClass();
+            event.key = e instanceof KeyEvent ? ((KeyEvent) e).getKey() : null;
+            event.handlers = handlers.size();
+            event.failures = failures;
+            event.commit();
+        }
     }
 }
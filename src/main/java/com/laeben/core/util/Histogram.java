@@ -0,0 +1,188 @@
+package com.laeben.core.util;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram counting the values into buckets with fixed upper bounds.
+ * <br/>
+ * Values over the last bound are counted in an overflow bucket. Percentiles are estimated
+ * from the buckets, so they are as precise as the bounds.
+ */
+public class Histogram {
+    private final long[] bounds;
+    private final AtomicLongArray counts;
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+
+    /**
+     * Create a new histogram.
+     * @param bounds inclusive upper bounds of the buckets in ascending order
+     */
+    public Histogram(long... bounds){
+        for (int i = 1; i < bounds.length; i++){
+            if (bounds[i] <= bounds[i - 1])
+                throw new IllegalArgumentException("Bounds are not ascending.");
+        }
+
+        this.bounds = bounds.clone();
+        this.counts = new AtomicLongArray(bounds.length + 1);
+    }
+
+    /**
+     * Create a histogram with the <i>1, 2, 5, 10, 20, 50...</i> bounds.
+     * @param first first bound
+     * @param last max bound
+     * @return the histogram
+     */
+    public static Histogram decimal(long first, long last){
+        var list = new long[64];
+        int count = 0;
+        int[] steps = { 1, 2, 5 };
+        for (long base = first; count == 0 || list[count - 1] < last; base *= 10){
+            for (int s : steps){
+                if (count > 0 && list[count - 1] >= last)
+                    break;
+                list[count++] = base * s;
+            }
+        }
+
+        return new Histogram(Arrays.copyOf(list, count));
+    }
+
+    /**
+     * Create a histogram with the bounds multiplied by the factor.
+     * @param first first bound
+     * @param factor factor of the next bound
+     * @param count count of the bounds
+     * @return the histogram
+     */
+    public static Histogram exponential(long first, long factor, int count){
+        var list = new long[count];
+        long b = first;
+        for (int i = 0; i < count; i++, b *= factor)
+            list[i] = b;
+
+        return new Histogram(list);
+    }
+
+    /**
+     * Count the value.
+     * @param value the value
+     */
+    public void record(long value){
+        int i = Arrays.binarySearch(bounds, value);
+        counts.incrementAndGet(i >= 0 ? i : -i - 1);
+        sum.add(value);
+        min.accumulateAndGet(value, Math::min);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * Remove all values.
+     */
+    public void reset(){
+        for (int i = 0; i < counts.length(); i++)
+            counts.set(i, 0);
+        sum.reset();
+        min.set(Long.MAX_VALUE);
+        max.set(Long.MIN_VALUE);
+    }
+
+    /**
+     * @return the current values, the values recorded while the snapshot is taken may be partially included
+     */
+    public Snapshot snapshot(){
+        var c = new long[counts.length()];
+        long count = 0;
+        for (int i = 0; i < c.length; i++){
+            c[i] = counts.get(i);
+            count += c[i];
+        }
+
+        return new Snapshot(bounds.clone(), c, count, sum.sum(), count == 0 ? 0 : min.get(), count == 0 ? 0 : max.get());
+    }
+
+    /**
+     * Immutable values of a histogram.
+     */
+    public static class Snapshot {
+        private final long[] bounds;
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long min;
+        private final long max;
+
+        private Snapshot(long[] bounds, long[] counts, long count, long sum, long min, long max){
+            this.bounds = bounds;
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.min = min;
+            this.max = max;
+        }
+
+        public long getCount(){
+            return count;
+        }
+
+        public long getSum(){
+            return sum;
+        }
+
+        public long getMin(){
+            return min;
+        }
+
+        public long getMax(){
+            return max;
+        }
+
+        public double getMean(){
+            return count == 0 ? 0 : (double) sum / count;
+        }
+
+        /**
+         * @return inclusive upper bounds of the buckets
+         */
+        public long[] getBounds(){
+            return bounds.clone();
+        }
+
+        /**
+         * @return counts of the buckets, the last one is the overflow bucket
+         */
+        public long[] getCounts(){
+            return counts.clone();
+        }
+
+        /**
+         * Estimate the percentile as the bound of its bucket, limited by the max value.
+         * @param p percentile between 0 and 100
+         * @return the value, 0 if empty
+         */
+        public long percentile(double p){
+            if (count == 0)
+                return 0;
+
+            long rank = (long) Math.ceil(p / 100 * count);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++){
+                seen += counts[i];
+                if (seen >= rank && seen > 0)
+                    return i < bounds.length ? Math.min(bounds[i], max) : max;
+            }
+
+            return max;
+        }
+
+        @Override
+        public String toString(){
+            return String.format("count=%d mean=%.1f min=%d p50=%d p90=%d p99=%d max=%d", count, getMean(), min, percentile(50), percentile(90), percentile(99), max);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.laeben.core.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Bulk stream reading with per thread pooled buffers.
+ */
+public class IOUtil {
+    private static final int MIN_BUFFER_SIZE = 8192;
+    private static final int MAX_POOLED_SIZE = 1 << 20;
+    /**
+     * Max size allocated for the announced length before the bytes arrive, larger contents grow while they are read.
+     */
+    private static final int MAX_INITIAL_SIZE = 4 << 20;
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    private static final ThreadLocal<byte[]> BUFFERS = ThreadLocal.withInitial(() -> new byte[MIN_BUFFER_SIZE]);
+
+    /**
+     * Read the stream as UTF-8 text and close it.
+     * @param stream the stream
+     * @param length expected length in bytes, negative if unknown, only a hint as it may come from the server
+     * @return the text
+     */
+    public static String readString(InputStream stream, long length) throws IOException {
+        try (stream){
+            byte[] buffer = BUFFERS.get();
+            if (length >= buffer.length)
+                // one spare byte to see the end without growing
+                buffer = new byte[(int) Math.min(length + 1, MAX_INITIAL_SIZE)];
+
+            int count = 0;
+            int read;
+            while (true){
+                if (count == buffer.length)
+                    buffer = grow(buffer);
+
+                read = stream.read(buffer, count, buffer.length - count);
+                if (read == -1)
+                    break;
+                count += read;
+            }
+
+            if (buffer.length <= MAX_POOLED_SIZE && buffer.length > BUFFERS.get().length)
+                BUFFERS.set(buffer);
+
+            return new String(buffer, 0, count, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static byte[] grow(byte[] buffer){
+        if (buffer.length >= MAX_ARRAY_SIZE)
+            throw new OutOfMemoryError("Content is too large");
+
+        return Arrays.copyOf(buffer, (int) Math.min(MAX_ARRAY_SIZE, buffer.length * 2L));
+    }
+}
@@ -0,0 +1,240 @@
+package com.laeben.core.util;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * In-memory cache with expiring entries and a max total weight.
+ * <br/>
+ * Least recently used entries are evicted first. Concurrent misses of the same key share a single load.
+ */
+public class ObjectCache<K, V> {
+    private static class Entry<V> {
+        private final V value;
+        private final long expires;
+        private final long weight;
+
+        private Entry(V value, long expires, long weight){
+            this.value = value;
+            this.expires = expires;
+            this.weight = weight;
+        }
+    }
+
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<K, CompletableFuture<V>> loading = new HashMap<>();
+    private final ToLongFunction<V> weigher;
+
+    private long maxWeight;
+    private long weight;
+    private long generation;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long coalesced;
+
+    /**
+     * Create a new cache weighing every entry as one.
+     * @param maxEntries max count of the entries
+     */
+    public ObjectCache(long maxEntries){
+        this(maxEntries, v -> 1);
+    }
+
+    /**
+     * Create a new cache.
+     * @param maxWeight max total weight of the entries
+     * @param weigher weight of a value
+     */
+    public ObjectCache(long maxWeight, ToLongFunction<V> weigher){
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+    }
+
+    /**
+     * Get the value from the cache or load it.
+     * <br/>
+     * Null values are not cached. Concurrent loads of the same key are shared even if the value is not cached.
+     * @param key the key
+     * @param ttl time to live of the loaded value, zero to load without caching
+     * @param loader the loader
+     * @return the value
+     * @throws ExecutionException if the loader throws, the cause is the exception of the loader
+     */
+    public V get(K key, Duration ttl, Callable<V> loader) throws ExecutionException {
+        boolean store = !ttl.isZero() && !ttl.isNegative();
+
+        CompletableFuture<V> future;
+        long gen;
+        boolean owner = false;
+        synchronized (this){
+            if (store){
+                Entry<V> e = entries.get(key);
+                if (e != null && e.expires > System.currentTimeMillis()){
+                    hits++;
+                    return e.value;
+                }
+
+                if (e != null){
+                    entries.remove(key);
+                    weight -= e.weight;
+                }
+
+                misses++;
+            }
+
+            gen = generation;
+            future = loading.get(key);
+            if (future == null){
+                future = new CompletableFuture<>();
+                loading.put(key, future);
+                owner = true;
+            }
+            else
+                coalesced++;
+        }
+
+        if (!owner)
+            return await(future);
+
+        V value;
+        try{
+            value = loader.call();
+        }
+        catch (Exception e){
+            synchronized (this){
+                loading.remove(key, future);
+            }
+            future.completeExceptionally(e);
+            throw new ExecutionException(e);
+        }
+        catch (Error e){
+            synchronized (this){
+                loading.remove(key, future);
+            }
+            future.completeExceptionally(e);
+            throw e;
+        }
+
+        synchronized (this){
+            loading.remove(key, future);
+            // invalidated while loading
+            if (store && value != null && gen == generation)
+                put(key, new Entry<>(value, System.currentTimeMillis() + ttl.toMillis(), weigher.applyAsLong(value)));
+        }
+        future.complete(value);
+
+        return value;
+    }
+
+    private V await(CompletableFuture<V> future) throws ExecutionException {
+        try{
+            return future.get();
+        }
+        catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new ExecutionException(e);
+        }
+    }
+
+    private void put(K key, Entry<V> entry){
+        Entry<V> old = entries.put(key, entry);
+        if (old != null)
+            weight -= old.weight;
+        weight += entry.weight;
+
+        evict();
+    }
+
+    private void evict(){
+        Iterator<Entry<V>> it = entries.values().iterator();
+        while (weight > maxWeight && it.hasNext()){
+            Entry<V> e = it.next();
+            it.remove();
+            weight -= e.weight;
+            evictions++;
+        }
+    }
+
+    /**
+     * Remove the entry of the key.
+     * @param key the key
+     */
+    public synchronized void invalidate(K key){
+        generation++;
+        Entry<V> e = entries.remove(key);
+        if (e != null)
+            weight -= e.weight;
+    }
+
+    /**
+     * Remove the entries whose keys match.
+     * @param filter key filter
+     */
+    public synchronized void invalidateIf(Predicate<K> filter){
+        generation++;
+        var it = entries.entrySet().iterator();
+        while (it.hasNext()){
+            var e = it.next();
+            if (!filter.test(e.getKey()))
+                continue;
+
+            it.remove();
+            weight -= e.getValue().weight;
+        }
+    }
+
+    /**
+     * Remove all entries.
+     */
+    public synchronized void invalidateAll(){
+        generation++;
+        entries.clear();
+        weight = 0;
+    }
+
+    /**
+     * Set the max total weight and evict the entries over it.
+     * @param maxWeight max total weight
+     */
+    public synchronized void setMaxWeight(long maxWeight){
+        this.maxWeight = maxWeight;
+        evict();
+    }
+
+    public synchronized int size(){
+        return entries.size();
+    }
+
+    public synchronized long getWeight(){
+        return weight;
+    }
+
+    public synchronized long getHitCount(){
+        return hits;
+    }
+
+    public synchronized long getMissCount(){
+        return misses;
+    }
+
+    public synchronized long getEvictionCount(){
+        return evictions;
+    }
+
+    /**
+     * @return count of the calls served by the running load of another call
+     */
+    public synchronized long getCoalescedCount(){
+        return coalesced;
+    }
+}
@@ -0,0 +1,54 @@
+package com.laeben.core.util.events;
+
+import com.laeben.core.entity.CancellableToken;
+
+import java.time.Duration;
+
+/**
+ * Progress event of a download or of all running downloads.
+ * <br/>
+ * Includes the source, the key, current and the total bytes, the throughput and the remaining time.
+ */
+public class DownloadProgressEvent extends ProgressEvent {
+    private final CancellableToken<?> token;
+    private final int count;
+    private final double bytesPerSecond;
+
+    public DownloadProgressEvent(String key, CancellableToken<?> token, int count, long current, long total, double bytesPerSecond) {
+        super(key, current, total);
+        this.token = token;
+        this.count = count;
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    /**
+     * @return token of the download, null for the aggregate of all downloads
+     */
+    public CancellableToken<?> getToken(){
+        return token;
+    }
+
+    /**
+     * @return count of the running downloads in the event
+     */
+    public int getCount(){
+        return count;
+    }
+
+    /**
+     * @return smoothed throughput in bytes per second
+     */
+    public double getBytesPerSecond(){
+        return bytesPerSecond;
+    }
+
+    /**
+     * @return estimated remaining time, null if the total or the throughput is unknown
+     */
+    public Duration getEta(){
+        if (getTotal() < 0 || bytesPerSecond <= 0)
+            return null;
+
+        return Duration.ofMillis((long) (Math.max(0, getTotal() - getCurrent()) / bytesPerSecond * 1000));
+    }
+}
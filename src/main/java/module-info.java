@@ -1,6 +1,9 @@
 module com.laeben.core {
     requires com.google.gson;
     requires org.apache.commons.compress;
+    requires java.net.http;
+    requires jdk.httpserver;
+    requires jdk.jfr;
 
     opens com.laeben.core to com.laeben,com.google.gson;
     opens com.laeben.core.entity;
@@ -18,4 +21,6 @@ module com.laeben.core {
     exports com.laeben.core.network;
     opens com.laeben.core.network;
     exports com.laeben.core.network.entity;
+    exports com.laeben.core.network.transport;
+    exports com.laeben.core.jfr;
 }
\ No newline at end of file
@@ -0,0 +1,110 @@
+package com.laeben.core;
+
+import com.laeben.core.entity.LaebenAppFile;
+import com.laeben.core.network.EventStreamServer;
+import com.laeben.core.util.events.BaseEvent;
+import com.laeben.core.util.events.ChangeEvent;
+import com.laeben.core.util.events.ValueEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AppSubscriptionTest {
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final BlockingQueue<BaseEvent> events = new LinkedBlockingQueue<>();
+
+    private EventStreamServer server;
+    private AppSubscription subscription;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = new EventStreamServer();
+        subscription = new AppSubscription("app", server.getUrl());
+        subscription.getEventSource().withBackoff(Duration.ofMillis(10), Duration.ofMillis(50));
+        subscription.getHandler().addHandler("test", events::add, false);
+    }
+
+    @AfterEach
+    void stop(){
+        subscription.close();
+        server.close();
+    }
+
+    private static String event(String type, String path, String data){
+        return "event: " + type + "\ndata: {\"path\":\"" + path + "\",\"data\":" + data + "}\n\n";
+    }
+
+    /**
+     * @return the next change event of the key, skipping the others
+     */
+    private ChangeEvent change(String key) throws InterruptedException {
+        while (true){
+            var e = events.poll(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+            if (e == null)
+                return null;
+            if (e instanceof ChangeEvent && ((ChangeEvent) e).getKey().equals(key))
+                return (ChangeEvent) e;
+        }
+    }
+
+    @Test
+    void putAndPatchAreMerged() throws Exception {
+        server.then(c -> {
+            c.send(event("put", "/", "{\"name\":\"A\",\"icon\":\"i\",\"latestMeta\":{\"url\":\"u1\",\"version\":1}}"));
+            c.send(event("patch", "/", "{\"name\":\"B\"}"));
+            c.send(event("put", "/latestMeta/version", "2"));
+            new CountDownLatch(1).await();
+        });
+        subscription.start();
+
+        var app = change(AppSubscription.APP);
+        assertNull(app.getOldValue());
+        assertEquals("A", ((LaebenApp) app.getNewValue()).getName());
+
+        var latest = change(AppSubscription.LATEST);
+        assertNull(latest.getOldValue());
+        assertEquals("u1", ((LaebenAppFile) latest.getNewValue()).url());
+
+        app = change(AppSubscription.APP);
+        assertEquals("A", ((LaebenApp) app.getOldValue()).getName());
+        assertEquals("B", ((LaebenApp) app.getNewValue()).getName());
+        assertEquals("i", ((LaebenApp) app.getNewValue()).getIcon());
+
+        latest = change(AppSubscription.LATEST);
+        assertEquals(1, ((LaebenAppFile) latest.getOldValue()).version());
+        assertEquals(2, ((LaebenAppFile) latest.getNewValue()).version());
+        assertEquals("u1", ((LaebenAppFile) latest.getNewValue()).url());
+    }
+
+    @Test
+    void cancelClosesSubscription() throws Exception {
+        server.then(c -> {
+            c.send("event: cancel\ndata: permission denied\n\n");
+            new CountDownLatch(1).await();
+        });
+        subscription.start();
+
+        while (true){
+            var e = events.poll(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+            assertNotNull(e);
+            if (e instanceof ValueEvent && ((ValueEvent) e).getKey().equals(AppSubscription.CANCEL)){
+                assertEquals("permission denied", ((ValueEvent) e).getValue());
+                break;
+            }
+        }
+
+        assertTrue(subscription.isClosed());
+        assertNotNull(server.next(TIMEOUT));
+        assertNull(server.next(Duration.ofMillis(300)));
+    }
+}
@@ -0,0 +1,84 @@
+package com.laeben.core;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonDeserializer;
+import com.laeben.core.network.LocalServer;
+import com.laeben.core.network.requester.RequesterFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LaebenAppTest {
+    private static class Thing {
+        private final String value;
+
+        private Thing(String value){
+            this.value = value;
+        }
+    }
+
+    private final AtomicInteger hits = new AtomicInteger();
+
+    private LocalServer server;
+    private LaebenApp app;
+
+    @BeforeEach
+    void start() throws Exception {
+        server = new LocalServer(0);
+        server.route("/apps/app.json", r -> LocalServer.Response.text("{\"name\":\"App\"}"));
+        server.route("/apps/app/thing.json", r -> {
+            hits.incrementAndGet();
+            return LocalServer.Response.text("{}");
+        });
+        LaebenApp.setRequesterFactory(new RequesterFactory(server.getUrl() + "/"));
+        LaebenApp.getObjectCache().invalidateAll();
+        LaebenApp.setCacheTtl("thing", Duration.ofMinutes(1));
+
+        app = LaebenApp.get("app", "App");
+    }
+
+    @AfterEach
+    void stop(){
+        LaebenApp.setRequesterFactory(null);
+        LaebenApp.setCacheTtl("thing", null);
+        LaebenApp.getObjectCache().invalidateAll();
+        server.close();
+    }
+
+    private static Gson gson(String value){
+        return new GsonBuilder()
+                .registerTypeAdapter(Thing.class, (JsonDeserializer<Thing>) (json, type, context) -> new Thing(value))
+                .create();
+    }
+
+    @Test
+    void objectsAreCachedPerGson() throws Exception {
+        Gson one = gson("one");
+        Gson two = gson("two");
+
+        Thing first = app.getObject("thing", one, Thing.class);
+        assertEquals("one", first.value);
+        assertEquals("two", app.getObject("thing", two, Thing.class).value);
+        assertSame(first, app.getObject("thing", one, Thing.class));
+        assertEquals(2, hits.get());
+    }
+
+    @Test
+    void invalidateCacheRemovesEveryGson() throws Exception {
+        Gson one = gson("one");
+        Gson two = gson("two");
+        app.getObject("thing", one, Thing.class);
+        app.getObject("thing", two, Thing.class);
+
+        app.invalidateCache("thing");
+        app.getObject("thing", one, Thing.class);
+        app.getObject("thing", two, Thing.class);
+        assertEquals(4, hits.get());
+    }
+}
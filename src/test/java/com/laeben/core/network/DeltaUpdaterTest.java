@@ -0,0 +1,129 @@
+package com.laeben.core.network;
+
+import com.laeben.core.entity.LaebenAppFile;
+import com.laeben.core.entity.LaebenAppPatch;
+import com.laeben.core.entity.Path;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeltaUpdaterTest {
+    private static final byte[] FULL = "full file of the new version".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    java.nio.file.Path dir;
+
+    private final Map<String, AtomicInteger> hits = new ConcurrentHashMap<>();
+    private LocalServer server;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = new LocalServer(0);
+        serve("/update.patch", resource("bsdiff-new.patch"));
+        serve("/full.bin", FULL);
+    }
+
+    @AfterEach
+    void stop(){
+        server.close();
+    }
+
+    private void serve(String path, byte[] content){
+        server.route(path, r -> {
+            hits.computeIfAbsent(path, x -> new AtomicInteger()).incrementAndGet();
+            return LocalServer.Response.of(200, "application/octet-stream", content);
+        });
+    }
+
+    private int hits(String path){
+        var count = hits.get(path);
+        return count == null ? 0 : count.get();
+    }
+
+    private static byte[] resource(String name) throws IOException {
+        try (InputStream in = DeltaUpdaterTest.class.getResourceAsStream("/com/laeben/core/util/" + name)){
+            assertNotNull(in, name);
+            return in.readAllBytes();
+        }
+    }
+
+    private static String sha256(byte[] content) throws Exception {
+        var b = new StringBuilder();
+        for (byte x : MessageDigest.getInstance("SHA-256").digest(content))
+            b.append(String.format("%02x", x));
+        return b.toString();
+    }
+
+    private static LaebenAppPatch patch(double from, double to, long size){
+        return new LaebenAppPatch(from, to, "https://example.com/" + from + "-" + to, null, size);
+    }
+
+    @Test
+    void cheapestChainIsChosen(){
+        var a = patch(1, 2, 100);
+        var b = patch(2, 3, 100);
+        var direct = patch(1, 3, 500);
+        var unknown = patch(1, 3, -1);
+
+        assertEquals(List.of(a, b), DeltaUpdater.findChain(List.of(direct, a, b, unknown), 1, 3, 1000));
+        assertEquals(List.of(unknown), DeltaUpdater.findChain(List.of(direct, a, b, unknown), 1, 3, 150));
+        assertEquals(List.of(direct), DeltaUpdater.findChain(List.of(direct, a), 1, 3, 1000));
+    }
+
+    @Test
+    void missingChainIsNull(){
+        assertNull(DeltaUpdater.findChain(List.of(patch(1, 2, 10)), 1, 3, 1000));
+        assertNull(DeltaUpdater.findChain(List.of(patch(2, 3, 10)), 1, 3, 1000));
+        assertNull(DeltaUpdater.findChain(List.of(patch(1, 2, 10)), 2, 2, 1000));
+        assertNull(DeltaUpdater.findChain(null, 1, 2, 1000));
+    }
+
+    private List<LaebenAppPatch> patches() throws IOException {
+        return List.of(new LaebenAppPatch(1, 2, server.getUrl() + "/update.patch", null, resource("bsdiff-new.patch").length));
+    }
+
+    private Path installed() throws IOException {
+        return Path.begin(Files.write(dir.resolve("app.bin"), resource("bsdiff-old.bin")));
+    }
+
+    @Test
+    void patchIsApplied() throws Exception {
+        byte[] expected = resource("bsdiff-new.bin");
+        var target = new LaebenAppFile(server.getUrl() + "/full.bin", 2, sha256(expected), -1);
+        Path destination = Path.begin(dir.resolve("new.bin"));
+
+        Path result = DeltaUpdater.update(installed(), 1, target, patches(), destination, false);
+
+        assertArrayEquals(expected, Files.readAllBytes(result.toFile().toPath()));
+        assertEquals(1, hits("/update.patch"));
+        assertEquals(0, hits("/full.bin"));
+        assertFalse(Files.exists(dir.resolve("new.bin.delta")));
+    }
+
+    @Test
+    void mismatchFallsBackToFullDownload() throws Exception {
+        // the patched file is not the target file
+        var target = new LaebenAppFile(server.getUrl() + "/full.bin", 2, sha256(FULL), -1);
+        Path destination = Path.begin(dir.resolve("new.bin"));
+
+        Path result = DeltaUpdater.update(installed(), 1, target, patches(), destination, false);
+
+        assertArrayEquals(FULL, Files.readAllBytes(result.toFile().toPath()));
+        assertEquals(1, hits("/update.patch"));
+        assertEquals(1, hits("/full.bin"));
+        assertFalse(Files.exists(dir.resolve("new.bin.delta")));
+    }
+}
@@ -0,0 +1,106 @@
+package com.laeben.core.network;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventSourceTest {
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final BlockingQueue<String> events = new LinkedBlockingQueue<>();
+    private final BlockingQueue<String> errors = new LinkedBlockingQueue<>();
+    private final EventSource.Listener listener = new EventSource.Listener() {
+        @Override
+        public void onEvent(String type, String data){
+            events.add(type + ":" + data);
+        }
+
+        @Override
+        public void onError(Exception e){
+            errors.add(String.valueOf(e));
+        }
+    };
+
+    private EventStreamServer server;
+    private EventSource source;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = new EventStreamServer();
+        source = new EventSource(server.getUrl(), null, listener)
+                .withBackoff(Duration.ofMillis(10), Duration.ofMillis(50));
+    }
+
+    @AfterEach
+    void stop(){
+        source.close();
+        server.close();
+    }
+
+    private String event() throws InterruptedException {
+        return events.poll(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    void eventsAreParsed() throws Exception {
+        server.then(c -> c.send(": keep-alive\n\ndata: a\ndata: b\n\nevent: put\ndata:c\n\nid: 1\n\n"));
+        source.start();
+
+        assertEquals("message:a\nb", event());
+        assertEquals("put:c", event());
+    }
+
+    @Test
+    void reconnectSendsLastEventId() throws Exception {
+        server.then(c -> c.send("id: 7\ndata: a\n\n"))
+                .then(c -> c.send("data: b\n\n"));
+        source.start();
+
+        assertNull(server.next(TIMEOUT).getHeader("Last-Event-ID"));
+        assertEquals("message:a", event());
+        assertEquals("7", server.next(TIMEOUT).getHeader("Last-Event-ID"));
+        assertEquals("message:b", event());
+    }
+
+    @Test
+    void retryDelaysReconnect() throws Exception {
+        server.then(c -> c.send("retry: 600\n\n"));
+        source.start();
+
+        var first = server.next(TIMEOUT);
+        var second = server.next(TIMEOUT);
+        assertNotNull(second);
+        assertTrue(second.getOpenedAt() - first.getOpenedAt() >= TimeUnit.MILLISECONDS.toNanos(600));
+    }
+
+    @Test
+    void idleStreamIsReconnected() throws Exception {
+        source.withIdleTimeout(Duration.ofMillis(200)).start();
+
+        var first = server.next(TIMEOUT);
+        assertNotNull(errors.poll(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS));
+        var second = server.next(TIMEOUT);
+        assertNotNull(second);
+        assertTrue(second.getOpenedAt() - first.getOpenedAt() >= TimeUnit.MILLISECONDS.toNanos(200));
+        assertFalse(source.isClosed());
+    }
+
+    @Test
+    void closeStopsReconnecting() throws Exception {
+        source.start();
+        assertNotNull(server.next(TIMEOUT));
+
+        source.close();
+        assertTrue(source.isClosed());
+        assertNull(server.next(Duration.ofMillis(300)));
+        assertTrue(errors.isEmpty());
+    }
+}
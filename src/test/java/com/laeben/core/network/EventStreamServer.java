@@ -0,0 +1,122 @@
+package com.laeben.core.network;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.*;
+
+/**
+ * Event stream server of the tests, every connection is served by the next script and ended after it.
+ * <br/>
+ * Connections without a script are kept open and silent until the server is closed.
+ */
+public class EventStreamServer implements AutoCloseable {
+    public interface Script {
+        void run(Connection connection) throws IOException, InterruptedException;
+    }
+
+    /**
+     * Accepted connection.
+     */
+    public static class Connection {
+        private final HttpExchange exchange;
+        private final long openedAt = System.nanoTime();
+
+        private Connection(HttpExchange exchange){
+            this.exchange = exchange;
+        }
+
+        /**
+         * @param name name of the header
+         * @return first value of the request header, null if not found
+         */
+        public String getHeader(String name){
+            return exchange.getRequestHeaders().getFirst(name);
+        }
+
+        /**
+         * @return {@link System#nanoTime()} when the connection was accepted
+         */
+        public long getOpenedAt(){
+            return openedAt;
+        }
+
+        /**
+         * Send the raw stream text.
+         * @param text the text
+         */
+        public void send(String text) throws IOException {
+            OutputStream out = exchange.getResponseBody();
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+            out.flush();
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "event-stream-server");
+        t.setDaemon(true);
+        return t;
+    });
+    private final BlockingQueue<Script> scripts = new LinkedBlockingQueue<>();
+    private final BlockingQueue<Connection> connections = new LinkedBlockingQueue<>();
+
+    public EventStreamServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * @param script script of the next connection
+     * @return the server
+     */
+    public EventStreamServer then(Script script){
+        scripts.add(script);
+        return this;
+    }
+
+    /**
+     * @param timeout max waiting time
+     * @return the next accepted connection, null on timeout
+     */
+    public Connection next(Duration timeout) throws InterruptedException {
+        return connections.poll(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public String getUrl(){
+        return "http://" + InetAddress.getLoopbackAddress().getHostAddress() + ":" + server.getAddress().getPort() + "/stream";
+    }
+
+    @Override
+    public void close(){
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange){
+            var connection = new Connection(exchange);
+            exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+            exchange.sendResponseHeaders(200, 0);
+            exchange.getResponseBody().flush();
+            connections.add(connection);
+
+            Script script = scripts.poll();
+            if (script == null)
+                new CountDownLatch(1).await();
+            else
+                script.run(connection);
+        }
+        catch (InterruptedException ignored){
+
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.laeben.core.network;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalServerTest {
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(TIMEOUT).build();
+    private LocalServer server;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = new LocalServer(0);
+    }
+
+    @AfterEach
+    void stop(){
+        server.close();
+    }
+
+    private HttpRequest.Builder request(String path){
+        return HttpRequest.newBuilder(URI.create(server.getUrl() + path)).timeout(TIMEOUT);
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    void concurrentCallbacks() throws Exception {
+        int count = 8;
+        var arrived = new CountDownLatch(count);
+        // every handler waits for the others, so they only finish if they run at the same time
+        server.route("/callback/", r -> {
+            arrived.countDown();
+            try{
+                return arrived.await(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)
+                        ? LocalServer.Response.text(r.getParameter("id"))
+                        : LocalServer.Response.status(504);
+            }
+            catch (InterruptedException e){
+                return LocalServer.Response.status(500);
+            }
+        });
+
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for (int i = 0; i < count; i++)
+            responses.add(client.sendAsync(request("/callback/x?id=" + i).build(), HttpResponse.BodyHandlers.ofString()));
+
+        for (int i = 0; i < count; i++){
+            var response = responses.get(i).get(TIMEOUT.toSeconds(), TimeUnit.SECONDS);
+            assertEquals(200, response.statusCode());
+            assertEquals(String.valueOf(i), response.body());
+        }
+    }
+
+    @Test
+    void awaitReceivesCallback() throws Exception {
+        server.route("/callback", r -> LocalServer.Response.html("<p>done</p>"));
+        var future = server.await("/callback", TIMEOUT);
+
+        var response = send(request("/callback?code=a%20b&state=1").build());
+        assertEquals(200, response.statusCode());
+        assertEquals("<p>done</p>", response.body());
+
+        var callback = future.get(TIMEOUT.toSeconds(), TimeUnit.SECONDS);
+        assertEquals("GET", callback.getMethod());
+        assertEquals("a b", callback.getParameter("code"));
+        assertEquals("1", callback.getParameter("state"));
+        assertNull(callback.getParameter("missing"));
+    }
+
+    @Test
+    void awaitTimesOut(){
+        var future = server.await("/never", Duration.ofMillis(100));
+
+        var e = assertThrows(ExecutionException.class, () -> future.get(TIMEOUT.toSeconds(), TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, e.getCause());
+    }
+
+    @Test
+    void awaitFailsOnClose(){
+        var future = server.await("/never", null);
+        server.close();
+
+        var e = assertThrows(ExecutionException.class, () -> future.get(TIMEOUT.toSeconds(), TimeUnit.SECONDS));
+        assertInstanceOf(IOException.class, e.getCause());
+    }
+
+    @Test
+    void preflightOfUnknownOriginIsRefused() throws Exception {
+        var response = send(request("/callback")
+                .method("OPTIONS", HttpRequest.BodyPublishers.noBody())
+                .header("Origin", "https://example.com")
+                .header("Access-Control-Request-Method", "POST")
+                .build());
+
+        assertEquals(403, response.statusCode());
+        assertTrue(response.headers().firstValue("Access-Control-Allow-Origin").isEmpty());
+    }
+
+    @Test
+    void preflightOfAllowedOriginIsEchoed() throws Exception {
+        server.withAllowedOrigins("https://app.example.com");
+
+        var response = send(request("/callback")
+                .method("OPTIONS", HttpRequest.BodyPublishers.noBody())
+                .header("Origin", "https://app.example.com")
+                .header("Access-Control-Request-Method", "POST")
+                .header("Access-Control-Request-Headers", "content-type")
+                .build());
+
+        assertEquals(204, response.statusCode());
+        assertEquals("https://app.example.com", response.headers().firstValue("Access-Control-Allow-Origin").orElse(null));
+        assertEquals("content-type", response.headers().firstValue("Access-Control-Allow-Headers").orElse(null));
+        assertEquals("Origin", response.headers().firstValue("Vary").orElse(null));
+    }
+
+    @Test
+    void responseAllowsOnlyAllowedOrigin() throws Exception {
+        server.withAllowedOrigins("https://app.example.com");
+        server.route("/data", r -> LocalServer.Response.text("ok"));
+
+        var allowed = send(request("/data").header("Origin", "https://app.example.com").build());
+        assertEquals("https://app.example.com", allowed.headers().firstValue("Access-Control-Allow-Origin").orElse(null));
+
+        var other = send(request("/data").header("Origin", "https://example.com").build());
+        assertEquals(200, other.statusCode());
+        assertTrue(other.headers().firstValue("Access-Control-Allow-Origin").isEmpty());
+    }
+
+    @Test
+    void preflightIsNotAwaited() throws Exception {
+        server.withAllowedOrigins("https://app.example.com");
+        server.route("/callback", r -> LocalServer.Response.text(r.getBody()));
+        var future = server.await("/callback", TIMEOUT);
+
+        send(request("/callback")
+                .method("OPTIONS", HttpRequest.BodyPublishers.noBody())
+                .header("Origin", "https://app.example.com")
+                .build());
+        assertFalse(future.isDone());
+
+        var response = send(request("/callback").POST(HttpRequest.BodyPublishers.ofString("token")).build());
+        assertEquals("token", response.body());
+        assertEquals("POST", future.get(TIMEOUT.toSeconds(), TimeUnit.SECONDS).getMethod());
+    }
+
+    @Test
+    void unknownPathUsesFallback() throws Exception {
+        assertEquals(404, send(request("/favicon.ico").build()).statusCode());
+
+        server.withFallback(r -> LocalServer.Response.status(410));
+        assertEquals(410, send(request("/favicon.ico").build()).statusCode());
+    }
+
+    @Test
+    void tooLargeBodyIsRefused() throws Exception {
+        var body = new byte[LocalServer.MAX_BODY_SIZE + 1];
+        var response = send(request("/callback").POST(HttpRequest.BodyPublishers.ofByteArray(body)).build());
+
+        assertEquals(413, response.statusCode());
+    }
+}
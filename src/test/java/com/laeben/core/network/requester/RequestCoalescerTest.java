@@ -0,0 +1,70 @@
+package com.laeben.core.network.requester;
+
+import com.laeben.core.network.LocalServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestCoalescerTest {
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private LocalServer server;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = new LocalServer(0);
+    }
+
+    @AfterEach
+    void stop(){
+        server.close();
+    }
+
+    private Requester requester(){
+        return Requester.begin(server.getUrl()).http().to("data");
+    }
+
+    @Test
+    void cancelledCallerDoesNotShareItsResult() throws Exception {
+        var hits = new AtomicInteger();
+        var arrived = new CountDownLatch(1);
+        server.route("/data", r -> {
+            if (hits.incrementAndGet() == 1){
+                arrived.countDown();
+                try{
+                    Thread.sleep(TIMEOUT.toMillis());
+                }
+                catch (InterruptedException ignored){
+
+                }
+            }
+            return LocalServer.Response.text("body");
+        });
+
+        var coalescer = Requester.getCoalescer();
+        long saved = coalescer.getSavedCount();
+
+        var cancelled = requester().getStringAsync();
+        assertTrue(arrived.await(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS));
+
+        var live = requester().getStringAsync();
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (coalescer.getSavedCount() == saved && System.nanoTime() < deadline)
+            Thread.sleep(10);
+        assertEquals(saved + 1, coalescer.getSavedCount());
+
+        cancelled.cancel(true);
+
+        assertEquals("body", live.get(TIMEOUT.toSeconds(), TimeUnit.SECONDS));
+        assertEquals(2, hits.get());
+        assertEquals(saved, coalescer.getSavedCount());
+    }
+}
@@ -0,0 +1,65 @@
+package com.laeben.core.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BsPatchTest {
+    /**
+     * The patch has four controls: a forward seek, a negative seek, diff bytes wrapping around 0xFF
+     * and an add reading past the end of the old file.
+     */
+    private static final String OLD = "bsdiff-old.bin";
+    private static final String NEW = "bsdiff-new.bin";
+    private static final String PATCH = "bsdiff-new.patch";
+
+    @TempDir
+    Path dir;
+
+    static byte[] resource(String name) throws IOException {
+        try (InputStream in = BsPatchTest.class.getResourceAsStream(name)){
+            assertNotNull(in, name);
+            return in.readAllBytes();
+        }
+    }
+
+    private Path file(String name, byte[] content) throws IOException {
+        return Files.write(dir.resolve(name), content);
+    }
+
+    @Test
+    void patchCreatesNewFile() throws IOException {
+        byte[] expected = resource(NEW);
+        var out = new ByteArrayOutputStream();
+
+        long size = BsPatch.apply(file(OLD, resource(OLD)), file(PATCH, resource(PATCH)), out);
+
+        assertEquals(expected.length, size);
+        assertArrayEquals(expected, out.toByteArray());
+    }
+
+    @Test
+    void invalidMagicIsRefused() throws IOException {
+        byte[] patch = resource(PATCH);
+        patch[0] = 'X';
+
+        var e = assertThrows(IOException.class, () -> BsPatch.apply(file(OLD, resource(OLD)), file(PATCH, patch), new ByteArrayOutputStream()));
+        assertEquals("Not a bsdiff patch.", e.getMessage());
+    }
+
+    @Test
+    void truncatedPatchIsRefused() throws IOException {
+        byte[] patch = resource(PATCH);
+        byte[] truncated = new byte[patch.length - 20];
+        System.arraycopy(patch, 0, truncated, 0, truncated.length);
+
+        assertThrows(IOException.class, () -> BsPatch.apply(file(OLD, resource(OLD)), file(PATCH, truncated), new ByteArrayOutputStream()));
+    }
+}